@@ -0,0 +1,403 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Solves puzzles in the one-line-per-puzzle format in parallel. Input is split into chunks, each chunk is solved on a
+ * fixed pool of workers, and solutions are written back in input order. Only a bounded number of chunks are in flight
+ * at once, so memory stays flat however long the input is.
+ */
+public class BatchSolver {
+
+    public static final String NO_SOLUTION = "NO SOLUTION";
+    public static final String INVALID = "INVALID";
+
+    private static final byte[] NO_SOLUTION_BYTES = NO_SOLUTION.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] INVALID_BYTES = INVALID.getBytes(StandardCharsets.US_ASCII);
+
+    private final BoardSolver boardSolver;
+    private final int threads;
+    private final int chunkSize;
+
+    private long puzzles;
+    private long solved;
+    private long unsolvable;
+    private long invalid;
+    private long elapsedNanos;
+
+
+    /**
+     * @param boardSolver - Engine and propagation used for each puzzle.
+     * @param threads - Number of worker threads.
+     * @param chunkSize - Number of puzzles handed to a worker at once when reading lines.
+     */
+    public BatchSolver(BoardSolver boardSolver, int threads, int chunkSize) {
+        this.boardSolver = boardSolver;
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    public BatchSolver() {
+        this(new BoardSolver(Propagator.Default(), SolverEngine.BACKTRACKING), Runtime.getRuntime().availableProcessors(), 1024);
+    }
+
+
+    public long getPuzzles() {
+        return puzzles;
+    }
+
+    public long getSolved() {
+        return solved;
+    }
+
+    public long getUnsolvable() {
+        return unsolvable;
+    }
+
+    public long getInvalid() {
+        return invalid;
+    }
+
+    public double getPuzzlesPerSecond() {
+        return elapsedNanos == 0 ? 0 : puzzles * 1e9 / elapsedNanos;
+    }
+
+
+    /**
+     * Solve every puzzle line of the input and write one line per puzzle to the output: the solution, NO_SOLUTION, or
+     * INVALID for a line that is not a puzzle. Blank lines and lines starting with '#' are skipped.
+     *
+     * @param input - Source of puzzle lines.
+     * @param output - Destination of the result lines, in input order.
+     *
+     * @throws IOException If reading or writing fails.
+     */
+    public void Run(BufferedReader input, Writer output) throws IOException {
+        Process(() -> ReadChunk(input), chunk -> chunk.Write(output));
+        output.flush();
+    }
+
+
+    /**
+     * Solve a puzzle file through memory-mapped, line-aligned chunks. Puzzles are decoded straight from the mapped bytes
+     * into each worker's Board and results are encoded into one byte array per chunk, so no String or boxed array is
+     * created per puzzle. Output is the same as Run.
+     *
+     * @param input - Puzzle file.
+     * @param output - Destination of the result lines, in input order.
+     * @param chunkBytes - Target size of each mapped chunk.
+     *
+     * @throws IOException If reading or writing fails.
+     */
+    public void RunMapped(Path input, OutputStream output, int chunkBytes) throws IOException {
+        try(MappedPuzzleReader reader = new MappedPuzzleReader(input, chunkBytes))
+        {
+            Process(() -> {
+                ByteBuffer bytes = reader.NextChunk();
+                return bytes == null ? null : new MappedChunk(bytes);
+            }, chunk -> chunk.Write(output));
+        }
+        output.flush();
+    }
+
+
+    /**
+     * @return Summary of the last run, including the throughput.
+     */
+    public String Report() {
+        return String.format("%d puzzles (%d solved, %d unsolvable, %d invalid) in %.3f s, %.0f puzzles/sec",
+                puzzles, solved, unsolvable, invalid, elapsedNanos / 1e9, getPuzzlesPerSecond());
+    }
+
+
+    /**
+     * Solve chunks on the worker pool as they are read, writing each in input order as soon as the oldest one is done.
+     */
+    private <C extends Chunk> void Process(ChunkSource<C> source, ChunkSink<C> sink) throws IOException {
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+
+        try
+        {
+            ArrayDeque<Future<C>> pending = new ArrayDeque<>();
+            C chunk;
+            while((chunk = source.Next()) != null)
+            {
+                C submitted = chunk;
+                pending.add(pool.submit(() -> {
+                    submitted.Solve(Worker.Current(), this.boardSolver);
+                    return submitted;
+                }));
+
+                if(pending.size() >= 2 * this.threads) Complete(Await(pending.removeFirst()), sink);
+            }
+            while(!pending.isEmpty()) Complete(Await(pending.removeFirst()), sink);
+        }
+        finally
+        {
+            pool.shutdownNow();
+            this.elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+
+    private <C extends Chunk> void Complete(C chunk, ChunkSink<C> sink) throws IOException {
+        sink.Write(chunk);
+
+        this.puzzles += chunk.solved + chunk.unsolvable + chunk.invalid;
+        this.solved += chunk.solved;
+        this.unsolvable += chunk.unsolvable;
+        this.invalid += chunk.invalid;
+    }
+
+
+    private LineChunk ReadChunk(BufferedReader input) throws IOException {
+        String[] lines = new String[this.chunkSize];
+        int count = 0;
+
+        String line;
+        while(count < this.chunkSize && (line = input.readLine()) != null)
+        {
+            line = line.strip();
+            if(line.isEmpty() || line.startsWith("#")) continue;
+            lines[count++] = line;
+        }
+        return count == 0 ? null : new LineChunk(lines, count);
+    }
+
+
+    private static <C> C Await(Future<C> future) throws IOException {
+        try
+        {
+            return future.get();
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while solving", e);
+        }
+        catch(ExecutionException e)
+        {
+            throw new IOException("Solving failed", e.getCause());
+        }
+    }
+
+
+    private interface ChunkSource<C> {
+        C Next() throws IOException;
+    }
+
+    private interface ChunkSink<C> {
+        void Write(C chunk) throws IOException;
+    }
+
+
+    /**
+     * A block of puzzles solved by one worker, with counts of each outcome.
+     */
+    private abstract static class Chunk {
+        protected int solved;
+        protected int unsolvable;
+        protected int invalid;
+
+        protected abstract void Solve(Worker worker, BoardSolver boardSolver);
+    }
+
+
+    /**
+     * Puzzle lines read as Strings, replaced in place by their result lines once solved.
+     */
+    private static final class LineChunk extends Chunk {
+        private final String[] lines;
+        private final int count;
+
+        private LineChunk(String[] lines, int count) {
+            this.lines = lines;
+            this.count = count;
+        }
+
+        @Override
+        protected void Solve(Worker worker, BoardSolver boardSolver) {
+            for(int i = 0; i < this.count; ++i)
+            {
+                String line = this.lines[i];
+                Board board = worker.BoardFor(line.length());
+
+                int outcome;
+                try
+                {
+                    outcome = board == null ? Worker.INVALID : worker.Solve(board, PuzzleFormat.Decode(line, board), boardSolver);
+                }
+                catch(IllegalArgumentException e)
+                {
+                    outcome = Worker.INVALID;
+                }
+
+                this.lines[i] = switch(outcome)
+                {
+                    case Worker.SOLVED -> worker.EncodeLine(board);
+                    case Worker.UNSOLVABLE -> NO_SOLUTION;
+                    default -> INVALID;
+                };
+                Count(outcome);
+            }
+        }
+
+        private void Write(Writer output) throws IOException {
+            for(int i = 0; i < this.count; ++i)
+            {
+                output.write(this.lines[i]);
+                output.write('\n');
+            }
+        }
+
+        private void Count(int outcome) {
+            if(outcome == Worker.SOLVED) ++solved;
+            else if(outcome == Worker.UNSOLVABLE) ++unsolvable;
+            else ++invalid;
+        }
+    }
+
+
+    /**
+     * A line-aligned region of a memory-mapped file, solved into a single byte array of result lines.
+     */
+    private static final class MappedChunk extends Chunk {
+        private final ByteBuffer input;
+        private byte[] output;
+        private int outputSize;
+
+        private MappedChunk(ByteBuffer input) {
+            this.input = input;
+        }
+
+        @Override
+        protected void Solve(Worker worker, BoardSolver boardSolver) {
+            int limit = this.input.limit();
+            this.output = new byte[limit + 16];
+
+            int position = 0;
+            while(position < limit)
+            {
+                int end = position;
+                while(end < limit && this.input.get(end) != '\n') ++end;
+
+                // Trim surrounding whitespace, including a Windows line ending
+                int first = position;
+                int last = end;
+                while(first < last && this.input.get(first) <= ' ') ++first;
+                while(last > first && this.input.get(last - 1) <= ' ') --last;
+                position = end + 1;
+
+                if(first == last || this.input.get(first) == '#') continue;
+
+                Board board = worker.BoardFor(last - first);
+                int outcome;
+                try
+                {
+                    outcome = board == null ? Worker.INVALID : worker.Solve(board, PuzzleFormat.Decode(this.input, first, board), boardSolver);
+                }
+                catch(IllegalArgumentException e)
+                {
+                    outcome = Worker.INVALID;
+                }
+
+                switch(outcome)
+                {
+                    case Worker.SOLVED -> {
+                        Ensure(board.getCellCount());
+                        PuzzleFormat.Encode(board, this.output, this.outputSize);
+                        this.outputSize += board.getCellCount();
+                        ++solved;
+                    }
+                    case Worker.UNSOLVABLE -> {
+                        Append(NO_SOLUTION_BYTES);
+                        ++unsolvable;
+                    }
+                    default -> {
+                        Append(INVALID_BYTES);
+                        ++invalid;
+                    }
+                }
+                Ensure(1);
+                this.output[this.outputSize++] = '\n';
+            }
+        }
+
+        private void Write(OutputStream stream) throws IOException {
+            stream.write(this.output, 0, this.outputSize);
+        }
+
+        private void Append(byte[] bytes) {
+            Ensure(bytes.length);
+            System.arraycopy(bytes, 0, this.output, this.outputSize, bytes.length);
+            this.outputSize += bytes.length;
+        }
+
+        private void Ensure(int extra) {
+            if(this.outputSize + extra > this.output.length)
+            {
+                this.output = Arrays.copyOf(this.output, Math.max(2 * this.output.length, this.outputSize + extra));
+            }
+        }
+    }
+
+
+    /**
+     * Per-thread Boards and buffers, kept per grid size so they are reused across every puzzle the thread solves.
+     */
+    private static final class Worker {
+        private static final int SOLVED = 0;
+        private static final int UNSOLVABLE = 1;
+        private static final int INVALID = 2;
+
+        private static final ThreadLocal<Worker> WORKERS = ThreadLocal.withInitial(Worker::new);
+
+        private final Board[] boards = new Board[Candidates.MAXIMUM_SIZE + 1];
+        private final char[][] buffers = new char[Candidates.MAXIMUM_SIZE + 1][];
+
+        private static Worker Current() {
+            return WORKERS.get();
+        }
+
+        /**
+         * @param length - Number of Cells on a puzzle line.
+         *
+         * @return This thread's Board for that grid size, or null if the length is not a supported grid.
+         */
+        private Board BoardFor(int length) {
+            int size = PuzzleFormat.SizeForLength(length);
+            if(size < 0) return null;
+
+            if(this.boards[size] == null)
+            {
+                int blockRows = PuzzleFormat.BlockRowsForSize(size);
+                this.boards[size] = new Board(blockRows, size / blockRows);
+                this.buffers[size] = new char[size * size];
+            }
+            return this.boards[size];
+        }
+
+        private int Solve(Board board, boolean consistent, BoardSolver boardSolver) {
+            if(!consistent) return UNSOLVABLE;
+            return boardSolver.Solve(board, null, 1) < 1 ? UNSOLVABLE : SOLVED;
+        }
+
+        private String EncodeLine(Board board) {
+            char[] buffer = this.buffers[board.getSize()];
+            PuzzleFormat.Encode(board, buffer);
+            return new String(buffer);
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Puzzle sets shared by the benchmarks: curated 9x9 puzzles of known difficulty, and seeded random puzzles of any shape.
+ */
+public final class BenchmarkPuzzles {
+
+    public static final String[] EASY_9X9 = {
+            "003020600900305001001806400008102900700000008006708200002609500800203009005010300",
+            "200080300060070084030500209000105408000000000402706000301007040720040060004010003",
+            "000000907000420180000705026100904000050000040000507009920108000034059000507000000",
+    };
+
+    public static final String[] HARD_9X9 = {
+            "8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..",
+            "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......",
+            "52...6.........7.13...........4..8..6......5...........418.........3..2...87.....",
+            "6.....8.3.4.7.................5.4.7.3..2.....1.6.......2.....5.....8.6......1....",
+            "48.3............71.2.......7.5....6....2..8.............1.76...3.....4......5....",
+            "....14....3....2...7..........9...3.6.1.............8.2.....1.4....5.6.....7.8...",
+    };
+
+    // Built against naive brute force, and the 'AI Escargot' puzzle
+    public static final String[] PATHOLOGICAL_9X9 = {
+            "..............3.85..1.2.......5.7.....4...1...9.......5......73..2.1........4...9",
+            "1....7.9..3..2...8..96..5....53..9...1..8...26....4...3......1..4......7..7...3..",
+    };
+
+    private BenchmarkPuzzles() {
+    }
+
+
+    /**
+     * @param lines - Puzzle lines in PuzzleFormat.
+     *
+     * @return The puzzles as arrays for Grid.LoadGrid.
+     */
+    public static List<Integer[]> Parse(String... lines) {
+        List<Integer[]> puzzles = new ArrayList<>();
+        for(String line : lines)
+        {
+            Integer[] puzzle = new Integer[line.length()];
+            for(int i = 0; i < line.length(); ++i)
+            {
+                int value = PuzzleFormat.SymbolValue(line.charAt(i));
+                puzzle[i] = value == Board.EMPTY ? null : value;
+            }
+            puzzles.add(puzzle);
+        }
+        return puzzles;
+    }
+
+
+    /**
+     * Create puzzles by generating a complete grid and clearing a fraction of its Cells. The puzzles are not necessarily
+     * unique, which is fine for timing. Both the complete grids and the cleared Cells come from the given Random, so
+     * the same seed always gives the same set.
+     *
+     * @param blockRows - Number of rows in a block.
+     * @param blockColumns - Number of columns in a block.
+     * @param removed - Fraction of Cells to clear.
+     * @param count - Number of puzzles.
+     * @param random - Source of randomness, seeded for repeatable sets.
+     *
+     * @return The puzzles as arrays for Grid.LoadGrid.
+     */
+    public static List<Integer[]> Dig(int blockRows, int blockColumns, double removed, int count, Random random) {
+        List<Integer[]> puzzles = new ArrayList<>();
+        PuzzleGenerator generator = new PuzzleGenerator(blockRows, blockColumns, random.nextLong());
+
+        for(int i = 0; i < count; ++i)
+        {
+            byte[] grid = generator.CreateFullGrid(new SplittableRandom(random.nextLong()));
+
+            Integer[] puzzle = new Integer[grid.length];
+            for(int index = 0; index < grid.length; ++index)
+            {
+                if(random.nextDouble() >= removed) puzzle[index] = (int) grid[index];
+            }
+            puzzles.add(puzzle);
+        }
+        return puzzles;
+    }
+
+
+    /**
+     * @param blockRows - Number of rows in a block.
+     * @param blockColumns - Number of columns in a block.
+     * @param puzzle - Puzzle to load.
+     *
+     * @return A new Grid holding the puzzle.
+     */
+    public static Grid Load(int blockRows, int blockColumns, Integer[] puzzle) {
+        Grid grid = new Grid(blockRows, blockColumns);
+        grid.LoadGrid(puzzle);
+        return grid;
+    }
+
+}
@@ -0,0 +1,213 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Minimal benchmark harness in the spirit of JMH: each benchmark gets warm-up iterations, then timed iterations that
+ * each run the operation for a fixed time, recording the average time per operation and the bytes allocated per
+ * operation across all threads (the same figure as JMH's gc.alloc.rate.norm). Results can be written as JMH-format JSON
+ * so existing JMH comparison tools can read them.
+ */
+public class BenchmarkRunner {
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+    private final com.sun.management.ThreadMXBean threads;
+
+    private final List<Result> results = new ArrayList<>();
+
+    // Results are folded into this so the JIT cannot remove the measured work
+    private volatile long sink;
+
+
+    /**
+     * @param warmupIterations - Iterations run and discarded before measuring.
+     * @param measurementIterations - Iterations measured.
+     * @param iterationMillis - Time each iteration runs the operation for.
+     */
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1_000_000;
+        this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+
+    /**
+     * Run and record a benchmark, printing its result.
+     *
+     * @param name - Benchmark name.
+     * @param params - Parameters of this run, e.g. the grid shape.
+     * @param operation - Operation measured, its result is consumed so it is not optimised away.
+     *
+     * @return The result.
+     */
+    public Result Run(String name, Map<String, String> params, Supplier<Object> operation) {
+        for(int i = 0; i < this.warmupIterations; ++i) Iterate(operation);
+
+        double[] nanosPerOperation = new double[this.measurementIterations];
+        double[] bytesPerOperation = new double[this.measurementIterations];
+        double[] bytesPerSecond = new double[this.measurementIterations];
+        for(int i = 0; i < this.measurementIterations; ++i)
+        {
+            double[] iteration = Iterate(operation);
+            nanosPerOperation[i] = iteration[0];
+            bytesPerOperation[i] = iteration[1];
+            bytesPerSecond[i] = iteration[1] / iteration[0] * 1e9;
+        }
+
+        Result result = new Result(name, new LinkedHashMap<>(params), nanosPerOperation, bytesPerOperation, bytesPerSecond);
+        this.results.add(result);
+        System.out.println(result);
+        return result;
+    }
+
+
+    /**
+     * Write every result recorded so far as JMH-format JSON.
+     *
+     * @param output - Destination of the JSON.
+     *
+     * @throws IOException If writing fails.
+     */
+    public void WriteJson(Writer output) throws IOException {
+        output.write("[\n");
+        for(int i = 0; i < this.results.size(); ++i)
+        {
+            output.write(this.results.get(i).ToJson());
+            output.write(i + 1 < this.results.size() ? ",\n" : "\n");
+        }
+        output.write("]\n");
+        output.flush();
+    }
+
+
+    /**
+     * @return Nanoseconds per operation and bytes allocated per operation for one iteration.
+     */
+    private double[] Iterate(Supplier<Object> operation) {
+        long allocatedBefore = AllocatedBytes();
+        long start = System.nanoTime();
+        long end = start + this.iterationNanos;
+
+        long operations = 0;
+        long now;
+        long hash = 0;
+        do
+        {
+            hash += System.identityHashCode(operation.get());
+            ++operations;
+            now = System.nanoTime();
+        }
+        while(now < end);
+
+        long allocated = AllocatedBytes() - allocatedBefore;
+        this.sink += hash;
+
+        return new double[] {(double) (now - start) / operations, (double) allocated / operations};
+    }
+
+
+    private long AllocatedBytes() {
+        long total = 0;
+        for(long bytes : this.threads.getThreadAllocatedBytes(this.threads.getAllThreadIds())) if(bytes > 0) total += bytes;
+        return total;
+    }
+
+
+    /**
+     * Measured statistics of one benchmark run.
+     */
+    public static class Result {
+        private final String name;
+        private final Map<String, String> params;
+        private final double[] nanosPerOperation;
+        private final double[] bytesPerOperation;
+        private final double[] bytesPerSecond;
+
+        private Result(String name, Map<String, String> params, double[] nanosPerOperation, double[] bytesPerOperation, double[] bytesPerSecond) {
+            this.name = name;
+            this.params = params;
+            this.nanosPerOperation = nanosPerOperation;
+            this.bytesPerOperation = bytesPerOperation;
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getMicrosPerOperation() {
+            return Mean(nanosPerOperation) / 1e3;
+        }
+
+        public double getBytesPerOperation() {
+            return Mean(bytesPerOperation);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-28s %-34s %12.3f +- %9.3f us/op %14.0f B/op %10.1f MB/s",
+                    name, params, getMicrosPerOperation(), Error(nanosPerOperation) / 1e3, getBytesPerOperation(),
+                    Mean(bytesPerSecond) / 1e6);
+        }
+
+        private String ToJson() {
+            StringBuilder json = new StringBuilder();
+            json.append("  {\n    \"benchmark\" : \"").append(name).append("\",\n");
+            json.append("    \"mode\" : \"avgt\",\n    \"threads\" : 1,\n    \"forks\" : 0,\n");
+            json.append("    \"measurementIterations\" : ").append(nanosPerOperation.length).append(",\n");
+            json.append("    \"params\" : {");
+            int p = 0;
+            for(Map.Entry<String, String> param : params.entrySet())
+            {
+                json.append(p++ == 0 ? "\n" : ",\n");
+                json.append("      \"").append(param.getKey()).append("\" : \"").append(param.getValue()).append('"');
+            }
+            json.append(params.isEmpty() ? "},\n" : "\n    },\n");
+            json.append("    \"primaryMetric\" : ").append(Metric(nanosPerOperation, 1e3, "us/op")).append(",\n");
+            json.append("    \"secondaryMetrics\" : {\n");
+            json.append("      \"gc.alloc.rate\" : ").append(Metric(bytesPerSecond, 1e6, "MB/sec")).append(",\n");
+            json.append("      \"gc.alloc.rate.norm\" : ").append(Metric(bytesPerOperation, 1, "B/op")).append("\n");
+            json.append("    }\n  }");
+            return json.toString();
+        }
+
+        private static String Metric(double[] raw, double scale, String unit) {
+            StringBuilder json = new StringBuilder();
+            json.append(String.format(Locale.ROOT, "{ \"score\" : %.6f, \"scoreError\" : %.6f, \"scoreUnit\" : \"%s\", \"rawData\" : [[",
+                    Mean(raw) / scale, Error(raw) / scale, unit));
+            for(int i = 0; i < raw.length; ++i) json.append(i == 0 ? "" : ", ").append(String.format(Locale.ROOT, "%.6f", raw[i] / scale));
+            return json.append("]] }").toString();
+        }
+
+        private static double Mean(double[] values) {
+            double sum = 0;
+            for(double value : values) sum += value;
+            return sum / values.length;
+        }
+
+        // Half-width of a ~99% confidence interval, assuming normally distributed iterations
+        private static double Error(double[] values) {
+            if(values.length < 2) return 0;
+
+            double mean = Mean(values);
+            double squares = 0;
+            for(double value : values) squares += (value - mean) * (value - mean);
+            return 2.576 * Math.sqrt(squares / (values.length - 1)) / Math.sqrt(values.length);
+        }
+    }
+
+}
@@ -0,0 +1,177 @@
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+/**
+ * Compact binary format for a puzzle or solution, for storage and IPC. A record is a 5-byte header, the Cells packed
+ * into the fewest bits that hold every number plus unfilled, and an optional CRC32C of the packed Cells:
+ * <pre>
+ *   'S' 'D'  flags  blockRows  blockColumns  cells...  [crc32c, 4 bytes big-endian]
+ * </pre>
+ * Each Cell is stored as its number plus one, 0 for unfilled, in row order and least significant bits first, so a 9x9
+ * record is 41 bytes of Cells where the text line is 81. Records are self-delimiting, the length follows from the
+ * header, so they can be concatenated on a stream.
+ */
+public final class BinaryPuzzleFormat {
+
+    public static final int HEADER_BYTES = 5;
+    public static final int CHECKSUM_BYTES = 4;
+
+    /**
+     * Flag bit set when the record ends with a checksum.
+     */
+    public static final int FLAG_CHECKSUM = 1;
+
+    private static final byte MAGIC_0 = 'S';
+    private static final byte MAGIC_1 = 'D';
+
+    private BinaryPuzzleFormat() {
+    }
+
+
+    /**
+     * @param size - Number of possible numbers.
+     *
+     * @return Bits per Cell, enough for every number plus unfilled.
+     */
+    public static int BitsPerCell(int size) {
+        return 32 - Integer.numberOfLeadingZeros(size);
+    }
+
+    /**
+     * @param blockRows - Number of rows in a block.
+     * @param blockColumns - Number of columns in a block.
+     *
+     * @return Number of bytes of packed Cells in a record of that shape.
+     */
+    public static int CellBytes(int blockRows, int blockColumns) {
+        int size = blockRows * blockColumns;
+        return (int) (((long) size * size * BitsPerCell(size) + 7) / 8);
+    }
+
+    /**
+     * @param blockRows - Number of rows in a block.
+     * @param blockColumns - Number of columns in a block.
+     * @param checksum - Whether the record ends with a checksum.
+     *
+     * @return Total length of a record of that shape.
+     */
+    public static int RecordBytes(int blockRows, int blockColumns, boolean checksum) {
+        return HEADER_BYTES + CellBytes(blockRows, blockColumns) + (checksum ? CHECKSUM_BYTES : 0);
+    }
+
+
+    /**
+     * Write the board as one record at the buffer's position, advancing it past the record.
+     *
+     * @param board - Board to encode, filled Cells being written and unfilled ones written as unfilled.
+     * @param bytes - Destination with at least RecordBytes remaining.
+     * @param checksum - Whether to end the record with a checksum.
+     */
+    public static void Encode(Board board, ByteBuffer bytes, boolean checksum) {
+        bytes.put(MAGIC_0).put(MAGIC_1).put((byte) (checksum ? FLAG_CHECKSUM : 0));
+        bytes.put((byte) board.getBlockRows()).put((byte) board.getBlockColumns());
+
+        int start = bytes.position();
+        int bits = BitsPerCell(board.getSize());
+        long pending = 0;
+        int pendingBits = 0;
+        for(int index = 0; index < board.getCellCount(); ++index)
+        {
+            pending |= (long) (board.getValue(index) + 1) << pendingBits;
+            pendingBits += bits;
+            while(pendingBits >= 8)
+            {
+                bytes.put((byte) pending);
+                pending >>>= 8;
+                pendingBits -= 8;
+            }
+        }
+        if(pendingBits > 0) bytes.put((byte) pending);
+
+        if(checksum) bytes.putInt(Checksum(bytes, start, bytes.position() - start));
+    }
+
+
+    /**
+     * Read the header of the record at the buffer's position, without advancing it.
+     *
+     * @param bytes - Buffer holding at least HEADER_BYTES.
+     *
+     * @return The shape as {blockRows, blockColumns, flags}.
+     *
+     * @throws IllegalArgumentException If the bytes are not a record header or the shape is not supported.
+     */
+    public static int[] ReadHeader(ByteBuffer bytes) {
+        int position = bytes.position();
+        if(bytes.get(position) != MAGIC_0 || bytes.get(position + 1) != MAGIC_1)
+            throw new IllegalArgumentException("Not a puzzle record at " + position);
+
+        int flags = bytes.get(position + 2);
+        int blockRows = bytes.get(position + 3);
+        int blockColumns = bytes.get(position + 4);
+        if(blockRows < 1 || blockColumns < 1 || blockRows * blockColumns > Candidates.MAXIMUM_SIZE)
+            throw new IllegalArgumentException("Unsupported shape " + blockRows + "x" + blockColumns);
+        return new int[] {blockRows, blockColumns, flags};
+    }
+
+
+    /**
+     * Clear the board and assign the Cells of the record at the buffer's position, advancing it past the record.
+     *
+     * @param bytes - Buffer holding a whole record.
+     * @param board - Board of the record's shape to fill.
+     *
+     * @return False if the Cells contradict each other, true otherwise.
+     *
+     * @throws IllegalArgumentException If the record is malformed, of another shape, or fails its checksum.
+     */
+    public static boolean Decode(ByteBuffer bytes, Board board) {
+        int[] header = ReadHeader(bytes);
+        if(header[0] != board.getBlockRows() || header[1] != board.getBlockColumns())
+            throw new IllegalArgumentException("Record is " + header[0] + "x" + header[1] + ", board is "
+                    + board.getBlockRows() + "x" + board.getBlockColumns());
+
+        bytes.position(bytes.position() + HEADER_BYTES);
+        int start = bytes.position();
+        int cellBytes = CellBytes(header[0], header[1]);
+
+        if((header[2] & FLAG_CHECKSUM) != 0 && bytes.getInt(start + cellBytes) != Checksum(bytes, start, cellBytes))
+            throw new IllegalArgumentException("Checksum mismatch in record at " + (start - HEADER_BYTES));
+
+        board.Clear();
+
+        int bits = BitsPerCell(board.getSize());
+        long mask = (1L << bits) - 1;
+        long pending = 0;
+        int pendingBits = 0;
+        boolean consistent = true;
+        for(int index = 0; index < board.getCellCount(); ++index)
+        {
+            while(pendingBits < bits)
+            {
+                pending |= (long) (bytes.get() & 0xFF) << pendingBits;
+                pendingBits += 8;
+            }
+            int value = (int) (pending & mask) - 1;
+            pending >>>= bits;
+            pendingBits -= bits;
+
+            if(value == Board.EMPTY) continue;
+            if(value >= board.getSize()) throw new IllegalArgumentException("Number " + value + " out of range at " + index);
+
+            // A number already removed from the Cell duplicates another in the same row, column, or block
+            consistent &= Candidates.Contains(board.getCandidates(index), value) && board.Assign(index, value);
+        }
+
+        bytes.position(start + cellBytes + ((header[2] & FLAG_CHECKSUM) != 0 ? CHECKSUM_BYTES : 0));
+        return consistent;
+    }
+
+
+    private static int Checksum(ByteBuffer bytes, int start, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes.slice(start, length));
+        return (int) crc.getValue();
+    }
+
+}
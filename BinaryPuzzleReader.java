@@ -0,0 +1,139 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads BinaryPuzzleFormat records from a channel one at a time, through a reused direct buffer. Next reads a whole
+ * record and exposes its shape, so the caller can pick a Board to Decode it into; records of different shapes may be
+ * mixed on one stream.
+ */
+public class BinaryPuzzleReader implements AutoCloseable {
+
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    private boolean endOfStream;
+
+    private int blockRows;
+    private int blockColumns;
+    private int recordEnd = -1;
+    private long records;
+
+
+    /**
+     * @param channel - Source, closed with the reader.
+     * @param bufferBytes - Size of the buffer, grown for a single record larger than this.
+     */
+    public BinaryPuzzleReader(ReadableByteChannel channel, int bufferBytes) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(Math.max(bufferBytes, BinaryPuzzleFormat.HEADER_BYTES)).limit(0);
+    }
+
+    public BinaryPuzzleReader(ReadableByteChannel channel) {
+        this(channel, 1 << 16);
+    }
+
+
+    /**
+     * @return Number of rows in a block of the current record.
+     */
+    public int getBlockRows() {
+        return blockRows;
+    }
+
+    /**
+     * @return Number of columns in a block of the current record.
+     */
+    public int getBlockColumns() {
+        return blockColumns;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+
+    /**
+     * Move to the next record, skipping the current one if it was not decoded.
+     *
+     * @return False at the end of the stream, true otherwise.
+     *
+     * @throws IOException If reading fails or the stream ends inside a record.
+     * @throws IllegalArgumentException If the next bytes are not a record header.
+     */
+    public boolean Next() throws IOException {
+        if(this.recordEnd >= 0) this.buffer.position(this.recordEnd);
+        this.recordEnd = -1;
+
+        if(!Fill(BinaryPuzzleFormat.HEADER_BYTES))
+        {
+            if(this.buffer.hasRemaining()) throw new EOFException("Stream ends inside a record header");
+            return false;
+        }
+
+        int[] header = BinaryPuzzleFormat.ReadHeader(this.buffer);
+        int length = BinaryPuzzleFormat.RecordBytes(header[0], header[1], (header[2] & BinaryPuzzleFormat.FLAG_CHECKSUM) != 0);
+        if(!Fill(length)) throw new EOFException("Stream ends inside a " + header[0] + "x" + header[1] + " record");
+
+        this.blockRows = header[0];
+        this.blockColumns = header[1];
+        this.recordEnd = this.buffer.position() + length;
+        ++this.records;
+        return true;
+    }
+
+
+    /**
+     * Clear the board and assign the Cells of the current record.
+     *
+     * @param board - Board of the current record's shape.
+     *
+     * @return False if the Cells contradict each other, true otherwise.
+     *
+     * @throws IllegalArgumentException If the record is of another shape or fails its checksum.
+     * @throws IllegalStateException If there is no current record.
+     */
+    public boolean Decode(Board board) {
+        if(this.recordEnd < 0) throw new IllegalStateException("No current record, call Next first");
+
+        boolean consistent = BinaryPuzzleFormat.Decode(this.buffer, board);
+        this.recordEnd = -1;
+        return consistent;
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+
+    // Make at least length unread bytes available, compacting or growing the buffer; false if the stream ends first
+    private boolean Fill(int length) throws IOException {
+        if(this.buffer.remaining() >= length) return true;
+        if(this.endOfStream) return false;
+
+        if(this.buffer.capacity() < length)
+        {
+            ByteBuffer larger = ByteBuffer.allocateDirect(length);
+            larger.put(this.buffer);
+            this.buffer = larger;
+        }
+        else
+        {
+            this.buffer.compact();
+        }
+
+        while(this.buffer.position() < length)
+        {
+            if(this.channel.read(this.buffer) < 0)
+            {
+                this.endOfStream = true;
+                break;
+            }
+        }
+        this.buffer.flip();
+        return this.buffer.remaining() >= length;
+    }
+
+}
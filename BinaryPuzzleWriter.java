@@ -0,0 +1,80 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes boards as BinaryPuzzleFormat records to a channel, encoding each straight from the Board into a reused direct
+ * buffer that is written out whenever the next record would not fit.
+ */
+public class BinaryPuzzleWriter implements AutoCloseable {
+
+    private final WritableByteChannel channel;
+    private final boolean checksum;
+    private ByteBuffer buffer;
+    private long records;
+
+
+    /**
+     * @param channel - Destination, closed with the writer.
+     * @param checksum - Whether each record ends with a checksum.
+     * @param bufferBytes - Size of the buffer, grown for a single record larger than this.
+     */
+    public BinaryPuzzleWriter(WritableByteChannel channel, boolean checksum, int bufferBytes) {
+        this.channel = channel;
+        this.checksum = checksum;
+        this.buffer = ByteBuffer.allocateDirect(bufferBytes);
+    }
+
+    public BinaryPuzzleWriter(WritableByteChannel channel, boolean checksum) {
+        this(channel, checksum, 1 << 16);
+    }
+
+
+    public long getRecords() {
+        return records;
+    }
+
+
+    /**
+     * @param board - Board to write, its filled Cells as they are and the rest as unfilled.
+     *
+     * @throws IOException If writing to the channel fails.
+     */
+    public void Write(Board board) throws IOException {
+        int length = BinaryPuzzleFormat.RecordBytes(board.getBlockRows(), board.getBlockColumns(), this.checksum);
+        if(this.buffer.remaining() < length)
+        {
+            Flush();
+            if(this.buffer.capacity() < length) this.buffer = ByteBuffer.allocateDirect(length);
+        }
+
+        BinaryPuzzleFormat.Encode(board, this.buffer, this.checksum);
+        ++this.records;
+    }
+
+
+    /**
+     * Write out every buffered record.
+     *
+     * @throws IOException If writing to the channel fails.
+     */
+    public void Flush() throws IOException {
+        this.buffer.flip();
+        while(this.buffer.hasRemaining()) this.channel.write(this.buffer);
+        this.buffer.clear();
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        try
+        {
+            Flush();
+        }
+        finally
+        {
+            this.channel.close();
+        }
+    }
+
+}
@@ -0,0 +1,418 @@
+import java.util.Arrays;
+
+/**
+ * Flat primitive representation of a grid used by the search. Values and candidate masks are held in arrays indexed by
+ * Cell index, and every change is recorded on a trail so a backtrack only undoes the Cells that actually changed.
+ * <p>
+ * The unfilled Cells can also be kept in a CellQueue by candidate count, so the most constrained Cell is found in
+ * constant time. The queue is built by the first call that needs it and then updated with every change and every Undo,
+ * so searches that select in a given order do not pay for its upkeep.
+ */
+public class Board {
+
+    public static final byte EMPTY = -1;
+
+    private static final HouseKernel KERNEL = HouseKernel.Default();
+
+    private final int size;
+    private final int blockRows;
+    private final int blockColumns;
+    private final int cellCount;
+
+    private final byte[] values;
+    private final long[] candidates;
+    private final RegionLayout layout;
+    private final int[][] peers;
+    private final int[][] houses;
+    private CellQueue unfilled;
+    private long[] scratch;
+
+    // Trail of previous Cell states, popped on Undo
+    private int[] trailIndexs;
+    private long[] trailCandidates;
+    private byte[] trailValues;
+    private int trailSize;
+
+
+    public Board(int blockRows, int blockColumns) {
+        this(RegionLayout.Standard(blockRows, blockColumns));
+    }
+
+    /**
+     * @param layout - Houses and peers of the Board, shared with every other Board of the layout.
+     */
+    public Board(RegionLayout layout) {
+        this.layout = layout;
+        this.blockRows = layout.getBlockRows();
+        this.blockColumns = layout.getBlockColumns();
+        this.size = layout.getSize();
+        this.cellCount = layout.getCellCount();
+
+        this.values = new byte[this.cellCount];
+        this.candidates = new long[this.cellCount];
+        this.peers = layout.getPeers();
+        this.houses = layout.getHouses();
+
+        Clear();
+        CreateTrail(this.cellCount * 4);
+    }
+
+    // Copy constructor, the copy starts with an empty trail sized for its own search rather than the original's
+    public Board(Board board) {
+        this.blockRows = board.blockRows;
+        this.blockColumns = board.blockColumns;
+        this.size = board.size;
+        this.cellCount = board.cellCount;
+
+        this.values = board.values.clone();
+        this.candidates = board.candidates.clone();
+        this.layout = board.layout;
+        this.peers = board.peers;
+        this.houses = board.houses;
+        this.unfilled = board.unfilled == null ? null : new CellQueue(board.unfilled);
+
+        CreateTrail(this.cellCount);
+    }
+
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getBlockRows() {
+        return blockRows;
+    }
+
+    public int getBlockColumns() {
+        return blockColumns;
+    }
+
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    public RegionLayout getLayout() {
+        return layout;
+    }
+
+    public int getValue(int index) {
+        return values[index];
+    }
+
+    public long getCandidates(int index) {
+        return candidates[index];
+    }
+
+    public boolean isFilled(int index) {
+        return values[index] != EMPTY;
+    }
+
+    /**
+     * @return Number of unfilled Cells.
+     */
+    public int getUnfilledCount() {
+        return Queue().getCount();
+    }
+
+    /**
+     * @param i - Position from 0 to getUnfilledCount() - 1. Positions change as Cells are filled and emptied.
+     *
+     * @return Index of the unfilled Cell at that position.
+     */
+    public int getUnfilledCell(int i) {
+        return Queue().getCell(i);
+    }
+
+    public int[] getPeers(int index) {
+        return peers[index];
+    }
+
+    /**
+     * Get the Cell indices of every row, column, and block, in that order, then of any extra houses of the layout.
+     *
+     * @return Array of houses, each holding the indices of its Cells.
+     */
+    public int[][] getHouses() {
+        return houses;
+    }
+
+    /**
+     * Find the next unfilled Cell with at most one candidate, i.e. a naked single or a Cell with no candidates left.
+     *
+     * @param from - Index to start at.
+     *
+     * @return Index of the Cell, or -1 if there is none from the start index on.
+     */
+    public int NextSingle(int from) {
+        return KERNEL.NextSingle(candidates, values, from);
+    }
+
+    /**
+     * Reduce the candidates of a house to the numbers held by at least one of its Cells and by at least two.
+     *
+     * @param house - Indices of the house's Cells.
+     * @param result - Receives the numbers held once or more at 0 and twice or more at 1.
+     */
+    public void ScanCandidates(int[] house, long[] result) {
+        KERNEL.ScanCandidates(candidates, house, result);
+    }
+
+    /**
+     * Reduce the values of a house to the numbers filled at least once and at least twice.
+     *
+     * @param house - Indices of the house's Cells.
+     * @param result - Receives the numbers filled once or more at 0 and twice or more, i.e. repeated, at 1.
+     */
+    public void ScanValues(int[] house, long[] result) {
+        KERNEL.ScanValues(values, house, result);
+    }
+
+    /**
+     * Get a work array owned by this Board, at least max(size, 2) longs, for rules that need temporary per-number
+     * storage without allocating at every search node. Its contents are not preserved between calls.
+     *
+     * @return The work array.
+     */
+    public long[] getScratch() {
+        if(scratch == null) scratch = new long[Math.max(size, 2)];
+        return scratch;
+    }
+
+    public int getRow(int index) {
+        return index / size;
+    }
+
+    public int getColumn(int index) {
+        return index % size;
+    }
+
+    /**
+     * @return Block of the Cell, or its region in a layout with irregular regions.
+     */
+    public int getBlock(int index) {
+        return layout.getRegion(index);
+    }
+
+
+    /**
+     * Reset every Cell to unfilled with all candidates and empty the trail, so the Board can be reused for another
+     * puzzle of the same shape.
+     */
+    public void Clear() {
+        Arrays.fill(this.values, EMPTY);
+        Arrays.fill(this.candidates, Candidates.Full(this.size));
+        this.trailSize = 0;
+
+        if(this.unfilled != null)
+        {
+            this.unfilled.Clear();
+            for(int index = 0; index < this.cellCount; ++index) this.unfilled.Set(index, this.size);
+        }
+    }
+
+
+    /**
+     * Set the value and candidates of a Cell directly, without recording it on the trail. Used when filling a new Board.
+     *
+     * @param index - Index of the Cell.
+     * @param value - Number in the Cell, or EMPTY.
+     * @param cellCandidates - Candidate mask of the Cell.
+     */
+    public void Load(int index, int value, long cellCandidates) {
+        values[index] = (byte) value;
+        candidates[index] = cellCandidates;
+        if(unfilled != null) Requeue(index);
+    }
+
+
+    /**
+     * Get the current position of the trail, to be passed to Undo when backtracking.
+     *
+     * @return The trail position.
+     */
+    public int Mark() {
+        return trailSize;
+    }
+
+
+    /**
+     * Undo every change recorded since the given trail position.
+     *
+     * @param mark - Trail position returned by Mark.
+     */
+    public void Undo(int mark) {
+        while(trailSize > mark)
+        {
+            --trailSize;
+            int index = trailIndexs[trailSize];
+            candidates[index] = trailCandidates[trailSize];
+            values[index] = trailValues[trailSize];
+            if(unfilled != null) Requeue(index);
+        }
+    }
+
+
+    /**
+     * Set a number to a Cell and remove it from the candidates of every peer sharing a house with it.
+     *
+     * @param index - Index of the Cell.
+     * @param number - Number set to the Cell.
+     *
+     * @return False if a peer was left without any candidates, true otherwise. The eliminations are completed either way.
+     */
+    public boolean Assign(int index, int number) {
+        Record(index);
+        values[index] = (byte) number;
+        candidates[index] = 0;
+        if(unfilled != null) unfilled.Remove(index);
+
+        boolean consistent = true;
+        long bit = Candidates.Bit(number);
+        int[] cellPeers = peers[index];
+
+        // KERNEL is a constant, so only one of the two loops is ever compiled
+        if(KERNEL.isVector())
+        {
+            for(int from = 0; from < cellPeers.length; from += Long.SIZE)
+            {
+                for(long holding = KERNEL.Holding(candidates, cellPeers, from, bit); holding != 0; holding &= holding - 1)
+                {
+                    consistent &= Remove(cellPeers[from + Long.numberOfTrailingZeros(holding)], bit);
+                }
+            }
+            return consistent;
+        }
+
+        for(int peer : cellPeers)
+        {
+            if((candidates[peer] & bit) == 0) continue;
+            consistent &= Remove(peer, bit);
+        }
+        return consistent;
+    }
+
+
+    private boolean Remove(int peer, long bit) {
+        Record(peer);
+        candidates[peer] &= ~bit;
+        if(unfilled != null) unfilled.Decrement(peer);
+        return candidates[peer] != 0;
+    }
+
+
+    /**
+     * Remove a single candidate from an unfilled Cell.
+     *
+     * @param index - Index of the Cell.
+     * @param number - Number to remove.
+     *
+     * @return False if the Cell was left without any candidates, true otherwise.
+     */
+    public boolean Eliminate(int index, int number) {
+        long bit = Candidates.Bit(number);
+        if((candidates[index] & bit) == 0) return true;
+
+        Record(index);
+        candidates[index] &= ~bit;
+        if(unfilled != null) unfilled.Decrement(index);
+        return candidates[index] != 0;
+    }
+
+
+    /**
+     * Restrict an unfilled Cell's candidates to those also held in a mask.
+     *
+     * @param index - Index of the Cell.
+     * @param mask - Candidates to keep.
+     *
+     * @return False if the Cell was left without any candidates, true otherwise.
+     */
+    public boolean Restrict(int index, long mask) {
+        long restricted = candidates[index] & mask;
+        if(restricted == candidates[index]) return true;
+
+        Record(index);
+        candidates[index] = restricted;
+        if(unfilled != null) unfilled.Set(index, Long.bitCount(restricted));
+        return restricted != 0;
+    }
+
+
+    /**
+     * Select the unfilled Cell with the fewest candidates, ties going to the earliest in the given order.
+     *
+     * @param order - Indices of Cells to consider.
+     *
+     * @return Index of the selected Cell, or -1 if every Cell in the order is filled.
+     */
+    public int SelectUnfilledCell(int[] order) {
+        int chosenIndex = -1;
+        int chosenCount = Integer.MAX_VALUE;
+
+        for(int index : order)
+        {
+            if(values[index] != EMPTY) continue;
+
+            int count = Long.bitCount(candidates[index]);
+            if(count < chosenCount)
+            {
+                chosenIndex = index;
+                chosenCount = count;
+                if(count <= 1) break;
+            }
+        }
+        return chosenIndex;
+    }
+
+
+    /**
+     * Select the unfilled Cell with the fewest candidates in constant time, ties going to the Cell that reached that
+     * count last.
+     *
+     * @return Index of the selected Cell, or -1 if every Cell is filled.
+     */
+    public int SelectUnfilledCell() {
+        return Queue().SelectFewest();
+    }
+
+
+    private CellQueue Queue() {
+        if(unfilled == null)
+        {
+            unfilled = new CellQueue(cellCount, size);
+            for(int index = 0; index < cellCount; ++index) Requeue(index);
+        }
+        return unfilled;
+    }
+
+
+    private void Requeue(int index) {
+        if(values[index] == EMPTY) unfilled.Set(index, Long.bitCount(candidates[index]));
+        else unfilled.Remove(index);
+    }
+
+
+    private void Record(int index) {
+        if(trailSize == trailIndexs.length)
+        {
+            int capacity = trailIndexs.length * 2;
+            trailIndexs = Arrays.copyOf(trailIndexs, capacity);
+            trailCandidates = Arrays.copyOf(trailCandidates, capacity);
+            trailValues = Arrays.copyOf(trailValues, capacity);
+        }
+
+        trailIndexs[trailSize] = index;
+        trailCandidates[trailSize] = candidates[index];
+        trailValues[trailSize] = values[index];
+        ++trailSize;
+    }
+
+
+    private void CreateTrail(int capacity) {
+        this.trailIndexs = new int[capacity];
+        this.trailCandidates = new long[capacity];
+        this.trailValues = new byte[capacity];
+        this.trailSize = 0;
+    }
+
+}
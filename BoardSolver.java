@@ -0,0 +1,267 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Single-threaded search of a Board with a chosen engine and propagation pipeline. A BoardSolver holds no per-search
+ * state, so one instance can be shared between threads as long as each thread searches its own Board.
+ */
+public class BoardSolver {
+
+    /**
+     * Smallest grid size searched with restarts when looking for one solution. Smaller grids solve too quickly to gain.
+     */
+    public static final int RESTART_MINIMUM_SIZE = 16;
+
+    /**
+     * Returned by Solve when the stop condition ended the search before it finished.
+     */
+    public static final int STOPPED = -2;
+
+    private static final int ABORTED = -1;
+
+    // Nodes between checks of the stop condition, minus 1
+    private static final long STOP_INTERVAL_MASK = 1023;
+
+    private final Propagator propagator;
+    private final SolverEngine engine;
+    private final NogoodPool nogoods;
+
+
+    public BoardSolver(Propagator propagator, SolverEngine engine) {
+        this(propagator, engine, null);
+    }
+
+    /**
+     * @param propagator - Propagation pipeline, run after every assignment, or once before the search for conflict
+     * learning.
+     * @param engine - Search engine.
+     * @param nogoods - Pool the conflict learning searches share their short nogoods through, or null. Only searches of
+     * the same puzzle may share a pool.
+     */
+    public BoardSolver(Propagator propagator, SolverEngine engine, NogoodPool nogoods) {
+        this.propagator = propagator;
+        this.engine = engine;
+        this.nogoods = nogoods;
+    }
+
+
+    public Propagator getPropagator() {
+        return propagator;
+    }
+
+    public SolverEngine getEngine() {
+        return engine;
+    }
+
+    public NogoodPool getNogoods() {
+        return nogoods;
+    }
+
+
+    /**
+     * Search the board, leaving it holding the last solution found if the maximum is reached.
+     *
+     * @param board - Board to search.
+     * @param unfilledOrder - Indices of unfilled Cells, in tie-break order for selection, or null to select in constant
+     * time from the board's queue with ties going to the Cell constrained last.
+     * @param maximumSolutions - Number of solutions to stop at.
+     *
+     * @return Number of solutions found
+     */
+    public int Solve(Board board, int[] unfilledOrder, int maximumSolutions) {
+        return Solve(board, unfilledOrder, maximumSolutions, null);
+    }
+
+    /**
+     * Search the board, leaving it holding the last solution found if the maximum is reached, unless told to stop
+     * first. The stop condition is checked every 1024 nodes, so it should be cheap, and it is called from the searching
+     * thread.
+     *
+     * @param board - Board to search.
+     * @param unfilledOrder - Indices of unfilled Cells, in tie-break order for selection, or null to select in constant
+     * time from the board's queue with ties going to the Cell constrained last.
+     * @param maximumSolutions - Number of solutions to stop at.
+     * @param stop - Returns true once the search should give up, or null to always finish.
+     *
+     * @return Number of solutions found, or STOPPED if the search gave up before finishing.
+     */
+    public int Solve(Board board, int[] unfilledOrder, int maximumSolutions, BooleanSupplier stop) {
+        SolveEvent event = SolveEvent.Begin();
+        SearchMetrics metrics = SearchMetrics.ENABLED ? new SearchMetrics() : null;
+
+        int solutions = Search(board, unfilledOrder, maximumSolutions, stop, metrics);
+
+        if(event != null) event.End(this.engine.name(), board.getSize(), maximumSolutions, solutions, metrics);
+        if(SearchMetrics.ENABLED) metrics.FlushTo(null);
+        return solutions;
+    }
+
+
+    // Only the backtracking search counts nodes, Dancing Links and conflict learning are reported as one Search phase
+    private int Search(Board board, int[] unfilledOrder, int maximumSolutions, BooleanSupplier stop, SearchMetrics metrics) {
+        PhaseEvent propagate = PhaseEvent.Begin("Propagate", board.getSize());
+        boolean consistent = this.propagator.Propagate(board);
+        propagate.End();
+        if(!consistent) return 0;
+
+        PhaseEvent search = PhaseEvent.Begin("Search", board.getSize());
+        try
+        {
+            if(this.engine == SolverEngine.DANCING_LINKS)
+            {
+                DancingLinks dancingLinks = new DancingLinks(board);
+                int solutions = dancingLinks.Solve(maximumSolutions, stop);
+                if(dancingLinks.isStopped()) return STOPPED;
+
+                if(solutions >= maximumSolutions) dancingLinks.WriteSolution(board);
+                return solutions;
+            }
+
+            if(this.engine == SolverEngine.CONFLICT_LEARNING)
+            {
+                ConflictSearch conflictSearch = new ConflictSearch(board, unfilledOrder, this.nogoods);
+                int solutions = conflictSearch.Solve(maximumSolutions, stop);
+                if(conflictSearch.isStopped()) return STOPPED;
+
+                if(solutions >= maximumSolutions) conflictSearch.WriteSolution(board);
+                return solutions;
+            }
+
+            if(maximumSolutions > 1 || board.getSize() < RESTART_MINIMUM_SIZE)
+                return SolveBoard(board, unfilledOrder, maximumSolutions, 0, new Budget(Long.MAX_VALUE, null, stop, metrics));
+
+            return SolveWithRestarts(board, unfilledOrder, stop, metrics);
+        }
+        finally
+        {
+            search.End();
+        }
+    }
+
+
+    /**
+     * Search for one solution in a series of runs, each cut off after a node budget following the Luby sequence
+     * (1, 1, 2, 1, 1, 2, 4, ...) times the Cell count, so an early wrong choice that would trap a single run in a huge
+     * barren subtree is abandoned instead of exhausted. Large grids near the hardness peak show exactly that heavy
+     * tail. The first run uses the given order; later runs break selection ties in row-major order, which keeps the
+     * search inside the houses it has already constrained, and try each Cell's numbers from a random starting point.
+     * Without an order every run selects from the board's queue, whose ties already favour the Cells constrained last.
+     */
+    private int SolveWithRestarts(Board board, int[] unfilledOrder, BooleanSupplier stop, SearchMetrics metrics) {
+        int mark = board.Mark();
+        int[] rowMajor = null;
+        if(unfilledOrder != null)
+        {
+            rowMajor = unfilledOrder.clone();
+            Arrays.sort(rowMajor);
+        }
+        SplittableRandom random = new SplittableRandom(unfilledOrder == null ? board.getUnfilledCount() : unfilledOrder.length);
+
+        for(int run = 1; ; ++run)
+        {
+            Budget budget = new Budget(Luby(run) * board.getCellCount(), run == 1 ? null : random, stop, metrics);
+            int solutions = SolveBoard(board, run == 1 ? unfilledOrder : rowMajor, 1, 0, budget);
+            if(solutions != ABORTED) return solutions;
+
+            board.Undo(mark);
+        }
+    }
+
+
+    /**
+     * Recursively search the board via DFS, propagating after each assignment and undoing each attempt through the
+     * board's trail. Stops as soon as the maximum number of solutions is reached, leaving the board holding that
+     * solution.
+     *
+     * @param board - Board to search.
+     * @param unfilledOrder - Indices of unfilled Cells, in tie-break order for selection.
+     * @param maximumSolutions - Number of solutions to stop at.
+     * @param depth - Depth of the current node in the search tree.
+     *
+     * @return Number of solutions found
+     */
+    private int SolveBoard(Board board, int[] unfilledOrder, int maximumSolutions, int depth, Budget budget) {
+        if(--budget.nodes < 0) return ABORTED;
+        if(budget.stop != null && (budget.nodes & STOP_INTERVAL_MASK) == 0 && budget.stop.getAsBoolean()) return STOPPED;
+        if(SearchMetrics.ENABLED) budget.metrics.Node(depth);
+
+        // Base case
+        // If no unfilled Cells left, grid is solved
+        int chosenIndex = unfilledOrder == null ? board.SelectUnfilledCell() : board.SelectUnfilledCell(unfilledOrder);
+        if(chosenIndex < 0) return 1;
+
+
+        // Iterate through possible solutions
+        int mark = board.Mark();
+        int solutions = 0;
+        int start = budget.random == null ? 0 : budget.random.nextInt(board.getSize());
+        for(long possible = board.getCandidates(chosenIndex); possible != 0; )
+        {
+            // Numbers are tried upwards from the start, wrapping round to the lowest
+            long fromStart = possible & (-1L << start);
+            int number = Candidates.First(fromStart != 0 ? fromStart : possible);
+            possible &= ~Candidates.Bit(number);
+
+            // Assign the number and propagate, then check next possible solution via DFS unless a contradiction was found
+            boolean consistent = board.Assign(chosenIndex, number) && this.propagator.Propagate(board);
+            if(SearchMetrics.ENABLED) budget.metrics.Eliminated(board.Mark() - mark - 1);
+
+            if(consistent)
+            {
+                int found = SolveBoard(board, unfilledOrder, maximumSolutions - solutions, depth + 1, budget);
+                if(found < 0) return found;
+
+                solutions += found;
+                if(solutions >= maximumSolutions) break;
+            }
+
+            // Dead-end reached -> Undo changes since the mark and try next possible number
+            board.Undo(mark);
+            if(SearchMetrics.ENABLED) budget.metrics.Backtrack();
+        }
+
+        return solutions;
+    }
+
+
+
+    /**
+     * @param run - Run number, from 1.
+     *
+     * @return Term of the Luby sequence for the run.
+     */
+    private static long Luby(int run) {
+        int k = 1;
+        while((1L << k) - 1 < run) ++k;
+
+        // Runs 2^k - 1 end a block with 2^(k-1), everything else repeats the sequence from its start
+        while(run != (1L << k) - 1)
+        {
+            run -= (1 << (k - 1)) - 1;
+            k = 1;
+            while((1L << k) - 1 < run) ++k;
+        }
+        return 1L << (k - 1);
+    }
+
+
+    /**
+     * Nodes left before a run gives up, the source of each node's starting number, null to always start at 0, the stop
+     * condition, null to never stop, and the counters of the solve, null when SearchMetrics are disabled.
+     */
+    private static final class Budget {
+        private long nodes;
+        private final SplittableRandom random;
+        private final BooleanSupplier stop;
+        private final SearchMetrics metrics;
+
+        private Budget(long nodes, SplittableRandom random, BooleanSupplier stop, SearchMetrics metrics) {
+            this.nodes = nodes;
+            this.random = random;
+            this.stop = stop;
+            this.metrics = metrics;
+        }
+    }
+
+}
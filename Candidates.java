@@ -0,0 +1,102 @@
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Static helpers for candidate sets stored as primitive bitmasks, where bit n being set means number n is still
+ * possible. A long covers every grid shape up to 64 numbers; grids with up to 32 numbers can use the int versions.
+ */
+public final class Candidates {
+
+    public static final int MAXIMUM_SIZE = Long.SIZE;
+
+    private Candidates() {
+    }
+
+
+    /**
+     * Create a mask holding every number from 0 to size - 1.
+     *
+     * @param size - Number of possible numbers in the grid.
+     *
+     * @return Mask with the lowest size bits set.
+     */
+    public static long Full(int size) {
+        if(size < 1 || size > MAXIMUM_SIZE)
+            throw new IllegalArgumentException("Grid size " + size + " outside 1.." + MAXIMUM_SIZE);
+
+        return size == MAXIMUM_SIZE ? -1L : (1L << size) - 1;
+    }
+
+    public static int FullInt(int size) {
+        if(size < 1 || size > Integer.SIZE)
+            throw new IllegalArgumentException("Grid size " + size + " outside 1.." + Integer.SIZE);
+
+        return size == Integer.SIZE ? -1 : (1 << size) - 1;
+    }
+
+    public static long Bit(int number) {
+        return 1L << number;
+    }
+
+    public static boolean Contains(long mask, int number) {
+        return (mask & (1L << number)) != 0;
+    }
+
+    public static int Count(long mask) {
+        return Long.bitCount(mask);
+    }
+
+    public static int Count(int mask) {
+        return Integer.bitCount(mask);
+    }
+
+
+    /**
+     * Get the lowest number held in the mask. Iterate a mask without allocating via
+     * {@code for(long m = mask; m != 0; m &= m - 1) { int number = Candidates.First(m); ... }}.
+     *
+     * @param mask - Non-empty candidate mask.
+     *
+     * @return The lowest number in the mask.
+     */
+    public static int First(long mask) {
+        return Long.numberOfTrailingZeros(mask);
+    }
+
+    public static int First(int mask) {
+        return Integer.numberOfTrailingZeros(mask);
+    }
+
+
+    /**
+     * Get the only number held in the mask, if it holds exactly one.
+     *
+     * @param mask - Candidate mask.
+     *
+     * @return The single number, or -1 if the mask is empty or holds several numbers.
+     */
+    public static int Single(long mask) {
+        return (mask != 0 && (mask & (mask - 1)) == 0) ? Long.numberOfTrailingZeros(mask) : -1;
+    }
+
+
+    /**
+     * Build a boxed Set from a mask. Allocates, so only meant for compatibility and printing.
+     *
+     * @param mask - Candidate mask.
+     *
+     * @return A new Set of the numbers in the mask.
+     */
+    public static Set<Integer> ToSet(long mask) {
+        Set<Integer> numbers = new HashSet<>();
+        for(long m = mask; m != 0; m &= m - 1) numbers.add(First(m));
+        return numbers;
+    }
+
+    public static long FromSet(Set<Integer> numbers) {
+        long mask = 0;
+        for(Integer number : numbers) mask |= Bit(number);
+        return mask;
+    }
+
+}
@@ -1,9 +1,7 @@
-import java.util.*;
+import java.util.Set;
 
 public class Cell {
 
-    private final Random random = new Random();
-
     private String name;
     private Integer index;
     private Integer solution;
@@ -13,7 +11,7 @@ public class Cell {
     private final int row;
     private final int column;
 
-    private final HashSet<Integer> possibleNumbers;
+    private long possibleNumbers;
 
 
     public Cell(int size, int index, int row, int column) {
@@ -38,7 +36,7 @@ public class Cell {
         this.selectedNumber = cell.getSelectedNumber();
         this.given = cell.isGiven();
 
-        this.possibleNumbers = new HashSet<>(cell.getPossibleNumbers());
+        this.possibleNumbers = cell.getPossibleMask();
     }
 
 
@@ -66,10 +64,28 @@ public class Cell {
         return selectedNumber;
     }
 
+    /**
+     * Slow compatibility view of the possible numbers. The returned Set is a new copy, so changes to it do not affect
+     * the Cell; use the mask methods instead on hot paths.
+     *
+     * @return A new Set holding the possible numbers.
+     */
     public Set<Integer> getPossibleNumbers() {
+        return Candidates.ToSet(possibleNumbers);
+    }
+
+    public long getPossibleMask() {
         return possibleNumbers;
     }
 
+    public int getPossibleCount() {
+        return Long.bitCount(possibleNumbers);
+    }
+
+    public boolean isPossible(int number) {
+        return Candidates.Contains(possibleNumbers, number);
+    }
+
     public boolean isGiven() {
         return given;
     }
@@ -84,7 +100,7 @@ public class Cell {
 
         if (solution != null)
         {
-            this.possibleNumbers.clear();
+            this.possibleNumbers = 0;
             this.given = true;
         }
     }
@@ -97,14 +113,27 @@ public class Cell {
         this.given = given;
     }
 
+    public void setPossibleMask(long possibleNumbers) {
+        this.possibleNumbers = possibleNumbers;
+    }
 
-    public HashSet<Integer> FillPossibleNumbers(int size) {
 
-        HashSet<Integer> newPossible = new HashSet<>();
+    /**
+     * Remove a number from the Cell's possible numbers.
+     *
+     * @param number - Number to remove.
+     *
+     * @return Whether the number was possible before removal.
+     */
+    public boolean RemovePossibleNumber(int number) {
+        long before = this.possibleNumbers;
+        this.possibleNumbers &= ~Candidates.Bit(number);
+        return before != this.possibleNumbers;
+    }
 
-        for(int i = 0; i < size; ++i) newPossible.add(i);
 
-        return newPossible;
+    public long FillPossibleNumbers(int size) {
+        return Candidates.Full(size);
     }
 
 }
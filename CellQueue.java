@@ -0,0 +1,174 @@
+import java.util.Arrays;
+
+/**
+ * The unfilled Cells of a Board, as a sparse set for constant time membership and iteration, and as a bucket queue by
+ * candidate count for constant time selection of the most constrained Cell.
+ * <p>
+ * Each bucket is a doubly linked list threaded through arrays indexed by Cell, and a bit per bucket records which are
+ * non-empty, so the fewest-candidates Cell is the head of the bucket found with one trailing-zero count. Cells are
+ * added at the head of their bucket, so ties go to the Cell that reached the count last. The queue holds no history of
+ * its own: the Board moves a Cell between buckets whenever its candidates change, including when Undo restores them.
+ */
+public class CellQueue {
+
+    private static final int NONE = -1;
+
+    private final int[] dense;
+    private final int[] positions;
+    private int count;
+
+    // Bucket b holds the Cells with b candidates; bucket 0, Cells left without any, is kept out of the mask
+    private final int[] heads;
+    private final int[] next;
+    private final int[] previous;
+    private final int[] buckets;
+    private long nonEmpty;
+
+
+    /**
+     * @param cellCount - Number of Cells on the Board.
+     * @param size - Number of possible numbers, the largest candidate count.
+     */
+    public CellQueue(int cellCount, int size) {
+        this.dense = new int[cellCount];
+        this.positions = new int[cellCount];
+        this.heads = new int[size + 1];
+        this.next = new int[cellCount];
+        this.previous = new int[cellCount];
+        this.buckets = new int[cellCount];
+        Clear();
+    }
+
+    // Copy constructor, for a Board copied with its Cells
+    public CellQueue(CellQueue queue) {
+        this.dense = queue.dense.clone();
+        this.positions = queue.positions.clone();
+        this.count = queue.count;
+        this.heads = queue.heads.clone();
+        this.next = queue.next.clone();
+        this.previous = queue.previous.clone();
+        this.buckets = queue.buckets.clone();
+        this.nonEmpty = queue.nonEmpty;
+    }
+
+
+    /**
+     * @return Number of unfilled Cells.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * @param i - Position from 0 to getCount() - 1. Positions change as Cells are added and removed.
+     *
+     * @return Index of the unfilled Cell at that position.
+     */
+    public int getCell(int i) {
+        return dense[i];
+    }
+
+    public boolean Contains(int index) {
+        return buckets[index] != NONE;
+    }
+
+
+    /**
+     * @return Index of an unfilled Cell with the fewest candidates, or -1 if every Cell is filled.
+     */
+    public int SelectFewest() {
+        if(this.heads[0] != NONE) return this.heads[0];
+        if(this.nonEmpty == 0) return NONE;
+        return this.heads[Long.numberOfTrailingZeros(this.nonEmpty) + 1];
+    }
+
+
+    /**
+     * Remove every Cell.
+     */
+    public void Clear() {
+        Arrays.fill(this.heads, NONE);
+        Arrays.fill(this.buckets, NONE);
+        this.count = 0;
+        this.nonEmpty = 0;
+    }
+
+
+    /**
+     * Add an unfilled Cell, or move it to the bucket for its new number of candidates.
+     *
+     * @param index - Index of the Cell.
+     * @param candidateCount - Number of candidates it has.
+     */
+    public void Set(int index, int candidateCount) {
+        int bucket = this.buckets[index];
+        if(bucket == candidateCount) return;
+
+        if(bucket == NONE)
+        {
+            this.positions[index] = this.count;
+            this.dense[this.count++] = index;
+        }
+        else
+        {
+            Unlink(index, bucket);
+        }
+        Link(index, candidateCount);
+    }
+
+
+    /**
+     * Move an unfilled Cell down one bucket after a single candidate is removed.
+     *
+     * @param index - Index of the Cell, in the queue.
+     */
+    public void Decrement(int index) {
+        int bucket = this.buckets[index];
+        Unlink(index, bucket);
+        Link(index, bucket - 1);
+    }
+
+
+    /**
+     * Remove a Cell once it is filled. Does nothing if it is not in the queue.
+     *
+     * @param index - Index of the Cell.
+     */
+    public void Remove(int index) {
+        int bucket = this.buckets[index];
+        if(bucket == NONE) return;
+
+        Unlink(index, bucket);
+        this.buckets[index] = NONE;
+
+        // The last Cell of the sparse set takes the removed Cell's position
+        int last = this.dense[--this.count];
+        int position = this.positions[index];
+        this.dense[position] = last;
+        this.positions[last] = position;
+    }
+
+
+    private void Link(int index, int bucket) {
+        int head = this.heads[bucket];
+        this.next[index] = head;
+        this.previous[index] = NONE;
+        if(head != NONE) this.previous[head] = index;
+
+        this.heads[bucket] = index;
+        this.buckets[index] = bucket;
+        if(bucket > 0) this.nonEmpty |= 1L << (bucket - 1);
+    }
+
+
+    private void Unlink(int index, int bucket) {
+        int before = this.previous[index];
+        int after = this.next[index];
+        if(before != NONE) this.next[before] = after;
+        else this.heads[bucket] = after;
+        if(after != NONE) this.previous[after] = before;
+
+        if(bucket > 0 && this.heads[bucket] == NONE) this.nonEmpty &= ~(1L << (bucket - 1));
+    }
+
+}
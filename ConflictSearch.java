@@ -0,0 +1,939 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Conflict-driven search engine with nogood learning and non-chronological backjumping, in the spirit of CDCL SAT
+ * solvers but working directly on the grid. A fact is a placement, a number in a Cell, either holding or eliminated,
+ * and every fact deduced keeps the reason it was deduced: a peer or the Cell itself was filled, it is the last
+ * candidate of its Cell, it is the last Cell of a house for its number, or a learned nogood forced it.
+ * <p>
+ * When a Cell or a house runs out of options the conflict is traced back through those reasons to the first fact of the
+ * latest decision that on its own leads to it, and the facts that fact rests on are learned as a nogood: a set of
+ * facts that can never all hold together. The search then jumps straight back to the earliest decision level at which
+ * the nogood forces the opposite of that fact, skipping every sibling subtree in between that would fail the same way,
+ * and the nogood keeps pruning wherever the same facts come together again.
+ * <p>
+ * Only these explainable deductions are made during the search; any other rules run once on the Board beforehand. The
+ * Cell with the fewest candidates is chosen next, ties going to the Cell seen in the most recent conflicts, then to the
+ * given order. The search restarts after a number of conflicts following the Luby sequence, keeping what it learned.
+ * Learned nogoods are held up to a limit that grows slowly, and once over it the half spanning the most decision
+ * levels, the least likely to prune again, is deleted. Nogoods spanning two levels or fewer are kept, as are those
+ * forcing a fact at the time. With a NogoodPool, the short nogoods are published and those of other workers collected
+ * at each restart.
+ * <p>
+ * Placement p is index * size + number, and fact 2p says it holds, fact 2p + 1 that it is eliminated. Nogoods shared
+ * through a pool use the same encoding, which depends only on the shape of the grid.
+ */
+public class ConflictSearch {
+
+    /**
+     * Conflicts per unit of the Luby sequence between restarts.
+     */
+    public static final int RESTART_UNIT = 100;
+
+    private static final int GLUE = 2;
+    private static final double ACTIVITY_DECAY = 0.95;
+
+    // Decisions between checks of the stop condition, minus 1
+    private static final long STOP_INTERVAL_MASK = 1023;
+
+    private static final byte HOLDS = 1;
+    private static final byte ELIMINATED = -1;
+
+    // Reasons of facts
+    private static final byte DECISION = 0;
+    private static final byte GIVEN = 1;
+    private static final byte FILLED = 2;
+    private static final byte CELL = 3;
+    private static final byte HOUSE = 4;
+    private static final byte NOGOOD = 5;
+
+    private final int size;
+    private final int cellCount;
+    private final int[][] houses;
+    private final int[][] housesOf;
+    private final int[][] peers;
+
+    // Per placement
+    private final byte[] state;
+    private final int[] levels;
+    private final byte[] reasons;
+    private final int[] reasonData;
+    private final boolean[] seen;
+
+    // Per Cell, per house and number
+    private final long[] masks;
+    private final byte[] values;
+    private final int[] houseCounts;
+    private final double[] activity;
+    private final int[] ranks;
+    private final byte[] phases;
+    private double bump = 1;
+
+    private final int[] trail;
+    private int trailSize;
+    private int propagated;
+    private final int[] levelStarts;
+    private int level;
+
+    private int[] conflict = new int[16];
+    private int conflictSize;
+    private int[] explained = new int[16];
+    private int explainedSize;
+    private int[] learned = new int[16];
+    private int learnedSize;
+    private final int[] levelStamps;
+    private int stamp;
+
+    // Nogood store, ids of deleted nogoods are reused
+    private int[][] nogoods = new int[64][];
+    private int[] lbds = new int[64];
+    private boolean[] permanent = new boolean[64];
+    private int nogoodSlots;
+    private int[] freeIds = new int[16];
+    private int freeCount;
+    private int learnedCount;
+    private int nogoodLimit;
+    private final int nogoodCeiling;
+    private final int[][] watches;
+    private final int[] watchCounts;
+
+    private final NogoodPool.Member member;
+    private int[][] exports;
+    private int exportCount;
+    private int[][] imports;
+    private boolean blocked;
+
+    private final SplittableRandom random;
+    private final byte[] solution;
+    private boolean refuted;
+    private boolean searched;
+    private boolean stopped;
+
+    private long decisions;
+    private long conflicts;
+    private long backjumps;
+    private long restarts;
+    private long learnedTotal;
+    private long deleted;
+    private long imported;
+    private long exported;
+
+
+    /**
+     * Take the board's values and candidates as the facts the search starts from.
+     *
+     * @param board - Board to solve, left unchanged.
+     * @param unfilledOrder - Indices of unfilled Cells, preferred in this order when Cells are otherwise tied, or null
+     * for index order.
+     * @param pool - Pool to share short nogoods through with the other workers of the same puzzle, or null.
+     */
+    public ConflictSearch(Board board, int[] unfilledOrder, NogoodPool pool) {
+        RegionLayout layout = board.getLayout();
+        this.size = board.getSize();
+        this.cellCount = board.getCellCount();
+        this.houses = layout.getHouses();
+        this.peers = layout.getPeers();
+        this.housesOf = new int[this.cellCount][];
+        for(int index = 0; index < this.cellCount; ++index) this.housesOf[index] = layout.getHousesOf(index);
+
+        int placements = this.cellCount * this.size;
+        this.state = new byte[placements];
+        this.levels = new int[placements];
+        this.reasons = new byte[placements];
+        this.reasonData = new int[placements];
+        this.seen = new boolean[placements];
+
+        this.masks = new long[this.cellCount];
+        this.values = new byte[this.cellCount];
+        this.houseCounts = new int[this.houses.length * this.size];
+        this.activity = new double[this.cellCount];
+        this.ranks = new int[this.cellCount];
+        this.phases = new byte[this.cellCount];
+
+        this.trail = new int[placements];
+        this.levelStarts = new int[this.cellCount + 2];
+        this.levelStamps = new int[this.cellCount + 2];
+
+        this.nogoodLimit = 1000 + this.cellCount;
+        this.nogoodCeiling = 20 * this.nogoodLimit;
+        this.watches = new int[2 * placements][];
+        this.watchCounts = new int[2 * placements];
+
+        this.member = pool == null ? null : pool.Join();
+        if(pool != null)
+        {
+            this.exports = new int[64][];
+            this.imports = new int[pool.getCapacity()][];
+        }
+
+        this.random = new SplittableRandom(unfilledOrder == null ? 0 : Arrays.hashCode(unfilledOrder));
+        this.solution = new byte[this.cellCount];
+
+        Arrays.fill(this.values, Board.EMPTY);
+        Arrays.fill(this.phases, Board.EMPTY);
+        Arrays.fill(this.ranks, this.cellCount);
+        if(unfilledOrder != null) for(int i = 0; i < unfilledOrder.length; ++i) this.ranks[unfilledOrder[i]] = i;
+        else for(int index = 0; index < this.cellCount; ++index) this.ranks[index] = index;
+
+        long full = Candidates.Full(this.size);
+        Arrays.fill(this.masks, full);
+        Arrays.fill(this.houseCounts, this.size);
+
+        // The givens and the board's eliminations are the facts of level 0, everything else follows from them
+        for(int index = 0; index < this.cellCount; ++index)
+        {
+            if(board.isFilled(index))
+            {
+                Enqueue(Fact(index, board.getValue(index), true), GIVEN, 0);
+                continue;
+            }
+            for(long eliminated = full & ~board.getCandidates(index); eliminated != 0; eliminated &= eliminated - 1)
+            {
+                Enqueue(Fact(index, Candidates.First(eliminated), false), GIVEN, 0);
+            }
+        }
+    }
+
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getDecisions() {
+        return decisions;
+    }
+
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * @return Number of conflicts after which the search jumped back over at least one decision level without trying
+     * the rest of its numbers.
+     */
+    public long getBackjumps() {
+        return backjumps;
+    }
+
+    public long getRestarts() {
+        return restarts;
+    }
+
+    /**
+     * @return Number of nogoods learned from conflicts, including those deleted since.
+     */
+    public long getLearned() {
+        return learnedTotal;
+    }
+
+    public long getDeleted() {
+        return deleted;
+    }
+
+    /**
+     * @return Number of nogoods currently held, learned or collected, that may still be deleted.
+     */
+    public int getNogoodCount() {
+        return learnedCount;
+    }
+
+    /**
+     * @return Number of nogoods collected from other workers and kept.
+     */
+    public long getImported() {
+        return imported;
+    }
+
+    public long getExported() {
+        return exported;
+    }
+
+
+    /**
+     * Fact that a number holds in a Cell, or that it is eliminated from it.
+     *
+     * @param index - Index of the Cell.
+     * @param number - Number in the Cell.
+     * @param holds - True for the number being placed, false for it being eliminated.
+     *
+     * @return The fact, as used by the nogoods of a NogoodPool.
+     */
+    public int Fact(int index, int number, boolean holds) {
+        return (index * this.size + number) << 1 | (holds ? 0 : 1);
+    }
+
+
+    /**
+     * Search for solutions, stopping once the maximum is reached. A ConflictSearch only searches once.
+     *
+     * @param maximumSolutions - Number of solutions to stop at.
+     *
+     * @return Number of solutions found.
+     */
+    public int Solve(int maximumSolutions) {
+        return Solve(maximumSolutions, null);
+    }
+
+    /**
+     * Search for solutions, stopping once the maximum is reached or the stop condition, checked every 1024 decisions,
+     * says to give up. Each solution found short of the maximum is blocked by a nogood of the decisions leading to it,
+     * and nothing more is published to the pool from then on, as later nogoods may rest on it.
+     *
+     * @param maximumSolutions - Number of solutions to stop at.
+     * @param stop - Returns true once the search should give up, or null to always finish.
+     *
+     * @return Number of solutions found, which only counts those found before stopping if isStopped.
+     */
+    public int Solve(int maximumSolutions, BooleanSupplier stop) {
+        if(this.searched) throw new IllegalStateException("ConflictSearch has already searched");
+        this.searched = true;
+
+        int solutions = 0;
+        int run = 1;
+        long restartAt = Luby(run) * RESTART_UNIT;
+        long runConflicts = 0;
+
+        while(true)
+        {
+            if(this.refuted || !Propagate())
+            {
+                ++this.conflicts;
+                ++runConflicts;
+                if(this.refuted || this.level == 0) return solutions;
+
+                Learn(false);
+                continue;
+            }
+
+            if(runConflicts >= restartAt)
+            {
+                restartAt = Luby(++run) * RESTART_UNIT;
+                runConflicts = 0;
+                Restart();
+                continue;
+            }
+            if(this.learnedCount >= this.nogoodLimit) Reduce();
+
+            int index = SelectCell();
+            if(index < 0)
+            {
+                System.arraycopy(this.values, 0, this.solution, 0, this.cellCount);
+                if(++solutions >= maximumSolutions || this.level == 0) return solutions;
+
+                // The decisions lead to this solution alone, so ruling them out together moves on to the next
+                this.blocked = true;
+                this.conflictSize = 0;
+                for(int l = 1; l <= this.level; ++l) AddConflict(this.trail[this.levelStarts[l]]);
+                Learn(true);
+                continue;
+            }
+
+            if(stop != null && (this.decisions & STOP_INTERVAL_MASK) == 0 && stop.getAsBoolean())
+            {
+                this.stopped = true;
+                return solutions;
+            }
+            ++this.decisions;
+
+            this.levelStarts[++this.level] = this.trailSize;
+            Enqueue(Fact(index, ChooseNumber(index), true), DECISION, 0);
+        }
+    }
+
+    /**
+     * @return Whether the last Solve gave up before finishing.
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+
+    /**
+     * Write the last solution found onto a board of the same shape.
+     *
+     * @param board - Board to fill.
+     */
+    public void WriteSolution(Board board) {
+        for(int index = 0; index < this.cellCount; ++index)
+        {
+            board.Load(index, this.solution[index], 0);
+        }
+    }
+
+
+    /**
+     * Pick the unfilled Cell with the fewest candidates, ties going to the most active, then the earliest in the order.
+     *
+     * @return Index of the Cell, or -1 if every Cell is filled.
+     */
+    private int SelectCell() {
+        int chosen = -1;
+        int chosenCount = Integer.MAX_VALUE;
+        for(int index = 0; index < this.cellCount; ++index)
+        {
+            if(this.values[index] != Board.EMPTY) continue;
+
+            int count = Long.bitCount(this.masks[index]);
+            if(count < chosenCount || count == chosenCount && (this.activity[index] > this.activity[chosen]
+                    || this.activity[index] == this.activity[chosen] && this.ranks[index] < this.ranks[chosen]))
+            {
+                chosen = index;
+                chosenCount = count;
+            }
+        }
+        return chosen;
+    }
+
+
+    // The number the Cell last held if it is still possible, otherwise one from a random starting point
+    private int ChooseNumber(int index) {
+        long mask = this.masks[index];
+        int phase = this.phases[index];
+        if(phase != Board.EMPTY && (mask & Candidates.Bit(phase)) != 0) return phase;
+
+        long fromStart = mask & (-1L << this.random.nextInt(this.size));
+        return Candidates.First(fromStart != 0 ? fromStart : mask);
+    }
+
+
+    /**
+     * Record a fact with its reason, unless it already holds.
+     *
+     * @return False if its opposite holds, leaving the conflict as the opposite and the reason.
+     */
+    private boolean Enqueue(int fact, byte reason, int data) {
+        int placement = fact >> 1;
+        byte wanted = (fact & 1) == 0 ? HOLDS : ELIMINATED;
+        if(this.state[placement] == wanted) return true;
+        if(this.state[placement] != 0)
+        {
+            this.conflictSize = 0;
+            AddConflict(fact ^ 1);
+            Explain(fact, reason, data);
+            for(int i = 0; i < this.explainedSize; ++i) AddConflict(this.explained[i]);
+            return false;
+        }
+
+        this.state[placement] = wanted;
+        this.levels[placement] = this.level;
+        this.reasons[placement] = reason;
+        this.reasonData[placement] = data;
+        this.trail[this.trailSize++] = fact;
+
+        int index = placement / this.size;
+        int number = placement % this.size;
+        if(wanted == HOLDS)
+        {
+            this.values[index] = (byte) number;
+        }
+        else
+        {
+            this.masks[index] &= ~Candidates.Bit(number);
+            for(int h : this.housesOf[index]) --this.houseCounts[h * this.size + number];
+        }
+        return true;
+    }
+
+
+    /**
+     * Deduce everything that follows from the facts recorded since the last call.
+     *
+     * @return False on a conflict, left in the conflict buffer as facts that all hold.
+     */
+    private boolean Propagate() {
+        while(this.propagated < this.trailSize)
+        {
+            int fact = this.trail[this.propagated++];
+            int placement = fact >> 1;
+            int index = placement / this.size;
+            int number = placement % this.size;
+            long bit = Candidates.Bit(number);
+
+            if((fact & 1) == 0)
+            {
+                // A filled Cell holds no other number, and no peer holds the same one
+                for(long others = this.masks[index] & ~bit; others != 0; others &= others - 1)
+                {
+                    if(!Enqueue(Fact(index, Candidates.First(others), false), FILLED, placement)) return false;
+                }
+                for(int peer : this.peers[index])
+                {
+                    if((this.masks[peer] & bit) != 0 && !Enqueue(Fact(peer, number, false), FILLED, placement)) return false;
+                }
+            }
+            else
+            {
+                if(!PropagateEliminated(index, number)) return false;
+            }
+
+            if(!PropagateNogoods(fact)) return false;
+        }
+        return true;
+    }
+
+
+    private boolean PropagateEliminated(int index, int number) {
+        if(this.values[index] == Board.EMPTY)
+        {
+            long mask = this.masks[index];
+            if(mask == 0)
+            {
+                this.conflictSize = 0;
+                for(int other = 0; other < this.size; ++other) AddConflict(Fact(index, other, false));
+                return false;
+            }
+            if((mask & (mask - 1)) == 0 && !Enqueue(Fact(index, Candidates.First(mask), true), CELL, 0)) return false;
+        }
+
+        for(int h : this.housesOf[index])
+        {
+            int count = this.houseCounts[h * this.size + number];
+            if(count > 1) continue;
+
+            if(count == 0)
+            {
+                this.conflictSize = 0;
+                for(int cell : this.houses[h]) AddConflict(Fact(cell, number, false));
+                return false;
+            }
+
+            long bit = Candidates.Bit(number);
+            for(int cell : this.houses[h])
+            {
+                if((this.masks[cell] & bit) == 0) continue;
+                if(!Enqueue(Fact(cell, number, true), HOUSE, h)) return false;
+                break;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Visit the nogoods watching a fact that has just come to hold. Each nogood watches its first two facts, kept to
+     * facts that do not hold where possible, so a nogood is only visited when it may have become forcing.
+     */
+    private boolean PropagateNogoods(int fact) {
+        int[] watching = this.watches[fact];
+        int count = this.watchCounts[fact];
+        int kept = 0;
+
+        for(int i = 0; i < count; ++i)
+        {
+            int id = watching[i];
+            int[] nogood = this.nogoods[id];
+            if(nogood[0] == fact)
+            {
+                nogood[0] = nogood[1];
+                nogood[1] = fact;
+            }
+
+            // Already satisfied, the other watched fact is contradicted
+            int other = nogood[0];
+            if(Holds(other ^ 1))
+            {
+                watching[kept++] = id;
+                continue;
+            }
+
+            boolean moved = false;
+            for(int k = 2; k < nogood.length; ++k)
+            {
+                if(Holds(nogood[k])) continue;
+
+                nogood[1] = nogood[k];
+                nogood[k] = fact;
+                Watch(nogood[1], id);
+                moved = true;
+                break;
+            }
+            if(moved) continue;
+
+            watching[kept++] = id;
+            if(Holds(other))
+            {
+                this.conflictSize = 0;
+                for(int f : nogood) AddConflict(f);
+
+                System.arraycopy(watching, i + 1, watching, kept, count - i - 1);
+                this.watchCounts[fact] = kept + count - i - 1;
+                return false;
+            }
+            Enqueue(other ^ 1, NOGOOD, id);
+        }
+        this.watchCounts[fact] = kept;
+        return true;
+    }
+
+
+    private boolean Holds(int fact) {
+        return this.state[fact >> 1] == ((fact & 1) == 0 ? HOLDS : ELIMINATED);
+    }
+
+
+    /**
+     * Collect the facts that a fact was deduced from into the explained buffer, all of which held before it.
+     */
+    private void Explain(int fact, byte reason, int data) {
+        this.explainedSize = 0;
+        int placement = fact >> 1;
+        int index = placement / this.size;
+        int number = placement % this.size;
+
+        switch(reason)
+        {
+            case FILLED -> AddExplained(data << 1);
+            case CELL -> {
+                for(int other = 0; other < this.size; ++other) if(other != number) AddExplained(Fact(index, other, false));
+            }
+            case HOUSE -> {
+                for(int cell : this.houses[data]) if(cell != index) AddExplained(Fact(cell, number, false));
+            }
+            case NOGOOD -> {
+                for(int f : this.nogoods[data]) if(f != (fact ^ 1)) AddExplained(f);
+            }
+            default -> { }
+        }
+    }
+
+
+    /**
+     * Learn a nogood from the conflict, jump back to the level where it forces the opposite of the conflict's fact at
+     * the current level, and record that fact there.
+     *
+     * @param keep - Whether the nogood blocks a solution, so it is never deleted.
+     */
+    private void Learn(boolean keep) {
+        int jump = Analyze();
+        if(this.level - jump > 1) ++this.backjumps;
+        Backjump(jump);
+
+        int asserted = this.learned[0] ^ 1;
+        if(this.learnedSize == 1)
+        {
+            Enqueue(asserted, GIVEN, 0);
+        }
+        else
+        {
+            int[] nogood = Arrays.copyOf(this.learned, this.learnedSize);
+            int id = AddNogood(nogood, Glue(nogood), keep);
+            Enqueue(asserted, NOGOOD, id);
+        }
+        ++this.learnedTotal;
+
+        if(this.member != null && !this.blocked && this.learnedSize <= this.member.getPool().getMaximumLength())
+        {
+            if(this.exportCount == this.exports.length) this.exports = Arrays.copyOf(this.exports, 2 * this.exportCount);
+            this.exports[this.exportCount++] = Arrays.copyOf(this.learned, this.learnedSize);
+        }
+
+        this.bump /= ACTIVITY_DECAY;
+        if(this.bump > 1e100)
+        {
+            for(int index = 0; index < this.cellCount; ++index) this.activity[index] *= 1e-100;
+            this.bump *= 1e-100;
+        }
+    }
+
+
+    /**
+     * Resolve the conflict back to its first unique implication point: keep replacing the latest fact of the current
+     * level by its reason until only one fact of the current level is left. The learned buffer ends up holding that
+     * fact first, then the facts of earlier levels, less any implied by the others, the latest level second.
+     *
+     * @return Level to jump back to, the latest level of the learned facts other than the first.
+     */
+    private int Analyze() {
+        this.learnedSize = 1;
+        int pending = 0;
+        for(int i = 0; i < this.conflictSize; ++i) pending += Mark(this.conflict[i]);
+
+        int position = this.trailSize;
+        int fact;
+        while(true)
+        {
+            do fact = this.trail[--position];
+            while(!this.seen[fact >> 1]);
+
+            this.seen[fact >> 1] = false;
+            if(--pending == 0) break;
+
+            int placement = fact >> 1;
+            Explain(fact, this.reasons[placement], this.reasonData[placement]);
+            for(int i = 0; i < this.explainedSize; ++i) pending += Mark(this.explained[i]);
+        }
+        this.learned[0] = fact;
+
+        // Drop facts whose reasons are all in the nogood already, working from a copy whose marks are cleared after
+        int marked = this.learnedSize;
+        System.arraycopy(this.learned, 0, this.learned, marked, marked);
+        int kept = 1;
+        for(int i = 1; i < marked; ++i)
+        {
+            int learnedFact = this.learned[marked + i];
+            if(!Implied(learnedFact)) this.learned[kept++] = learnedFact;
+        }
+        for(int i = 1; i < marked; ++i) this.seen[this.learned[marked + i] >> 1] = false;
+        this.learnedSize = kept;
+
+        int jump = 0;
+        for(int i = 1; i < this.learnedSize; ++i)
+        {
+            int l = this.levels[this.learned[i] >> 1];
+            if(l <= jump) continue;
+
+            jump = l;
+            int swap = this.learned[1];
+            this.learned[1] = this.learned[i];
+            this.learned[i] = swap;
+        }
+        return jump;
+    }
+
+
+    /**
+     * Mark a fact of the conflict, bumping its Cell. Facts of earlier levels go into the nogood, facts of level 0 always
+     * hold and are left out.
+     *
+     * @return 1 if the fact is newly marked at the current level, else 0.
+     */
+    private int Mark(int fact) {
+        int placement = fact >> 1;
+        if(this.seen[placement] || this.levels[placement] == 0) return 0;
+
+        this.seen[placement] = true;
+        int index = placement / this.size;
+        this.activity[index] += this.bump;
+        if(this.levels[placement] == this.level) return 1;
+
+        if(2 * this.learnedSize + 2 > this.learned.length) this.learned = Arrays.copyOf(this.learned, 2 * this.learned.length + 2);
+        this.learned[this.learnedSize++] = fact;
+        return 0;
+    }
+
+
+    // A fact is implied by the rest of the nogood if every fact of its reason is in the nogood or always holds
+    private boolean Implied(int fact) {
+        int placement = fact >> 1;
+        if(this.reasons[placement] == DECISION) return false;
+
+        Explain(fact, this.reasons[placement], this.reasonData[placement]);
+        for(int i = 0; i < this.explainedSize; ++i)
+        {
+            int reasonPlacement = this.explained[i] >> 1;
+            if(!this.seen[reasonPlacement] && this.levels[reasonPlacement] != 0) return false;
+        }
+        return true;
+    }
+
+
+    // Number of distinct decision levels among the facts, the fewer the more likely the nogood is to prune again
+    private int Glue(int[] nogood) {
+        ++this.stamp;
+        int glue = 0;
+        for(int fact : nogood)
+        {
+            int l = this.levels[fact >> 1];
+            if(this.levelStamps[l] == this.stamp) continue;
+
+            this.levelStamps[l] = this.stamp;
+            ++glue;
+        }
+        return glue;
+    }
+
+
+    /**
+     * Undo every fact above a level, remembering the numbers filled so the same choices are tried first next time.
+     */
+    private void Backjump(int target) {
+        if(target >= this.level) return;
+
+        int start = this.levelStarts[target + 1];
+        for(int position = this.trailSize - 1; position >= start; --position)
+        {
+            int fact = this.trail[position];
+            int placement = fact >> 1;
+            int index = placement / this.size;
+            int number = placement % this.size;
+
+            this.state[placement] = 0;
+            if((fact & 1) == 0)
+            {
+                this.values[index] = Board.EMPTY;
+                this.phases[index] = (byte) number;
+            }
+            else
+            {
+                this.masks[index] |= Candidates.Bit(number);
+                for(int h : this.housesOf[index]) ++this.houseCounts[h * this.size + number];
+            }
+        }
+        this.trailSize = start;
+        this.propagated = start;
+        this.level = target;
+    }
+
+
+    /**
+     * Go back to level 0 keeping every nogood, then swap short nogoods with the other workers.
+     */
+    private void Restart() {
+        ++this.restarts;
+        Backjump(0);
+        if(this.member == null) return;
+
+        this.member.Publish(this.exports, this.exportCount);
+        this.exported += this.exportCount;
+        Arrays.fill(this.exports, 0, this.exportCount, null);
+        this.exportCount = 0;
+
+        int count = this.member.Collect(this.imports);
+        for(int i = 0; i < count; ++i)
+        {
+            Import(this.imports[i]);
+            this.imports[i] = null;
+        }
+    }
+
+
+    /**
+     * Add a nogood from another worker, less its facts that always hold here. One already contradicted here is of no
+     * use and skipped, one with a single fact left forces its opposite at level 0.
+     */
+    private void Import(int[] shared) {
+        int[] nogood = new int[shared.length];
+        int length = 0;
+        for(int fact : shared)
+        {
+            if(Holds(fact ^ 1)) return;
+            if(!Holds(fact)) nogood[length++] = fact;
+        }
+
+        ++this.imported;
+        if(length == 0) this.refuted = true;
+        else if(length == 1) Enqueue(nogood[0] ^ 1, GIVEN, 0);
+        else AddNogood(Arrays.copyOf(nogood, length), length, false);
+    }
+
+
+    private int AddNogood(int[] nogood, int glue, boolean keep) {
+        int id;
+        if(this.freeCount > 0)
+        {
+            id = this.freeIds[--this.freeCount];
+        }
+        else
+        {
+            if(this.nogoodSlots == this.nogoods.length)
+            {
+                int capacity = 2 * this.nogoodSlots;
+                this.nogoods = Arrays.copyOf(this.nogoods, capacity);
+                this.lbds = Arrays.copyOf(this.lbds, capacity);
+                this.permanent = Arrays.copyOf(this.permanent, capacity);
+            }
+            id = this.nogoodSlots++;
+        }
+
+        this.nogoods[id] = nogood;
+        this.lbds[id] = glue;
+        this.permanent[id] = keep;
+        if(!keep) ++this.learnedCount;
+
+        Watch(nogood[0], id);
+        Watch(nogood[1], id);
+        return id;
+    }
+
+
+    private void Watch(int fact, int id) {
+        int[] watching = this.watches[fact];
+        int count = this.watchCounts[fact];
+        if(watching == null) this.watches[fact] = watching = new int[4];
+        else if(count == watching.length) this.watches[fact] = watching = Arrays.copyOf(watching, 2 * count);
+
+        watching[count] = id;
+        this.watchCounts[fact] = count + 1;
+    }
+
+
+    /**
+     * Delete the half of the deletable nogoods spanning the most levels, the oldest first among equals, then raise the
+     * limit a little so the nogoods kept have room to prove themselves. The watches are rebuilt from what is left.
+     */
+    private void Reduce() {
+        long[] candidates = new long[this.nogoodSlots];
+        int count = 0;
+        for(int id = 0; id < this.nogoodSlots; ++id)
+        {
+            if(this.nogoods[id] == null || this.permanent[id] || this.lbds[id] <= GLUE || Locked(id)) continue;
+            candidates[count++] = (long) -this.lbds[id] << 32 | id;
+        }
+        Arrays.sort(candidates, 0, count);
+
+        for(int i = 0; i < count / 2; ++i)
+        {
+            int id = (int) candidates[i];
+            this.nogoods[id] = null;
+            if(this.freeCount == this.freeIds.length) this.freeIds = Arrays.copyOf(this.freeIds, 2 * this.freeCount);
+            this.freeIds[this.freeCount++] = id;
+            --this.learnedCount;
+            ++this.deleted;
+        }
+
+        Arrays.fill(this.watchCounts, 0);
+        for(int id = 0; id < this.nogoodSlots; ++id)
+        {
+            int[] nogood = this.nogoods[id];
+            if(nogood == null) continue;
+
+            Watch(nogood[0], id);
+            Watch(nogood[1], id);
+        }
+
+        this.nogoodLimit = Math.min(this.nogoodCeiling, this.nogoodLimit + this.nogoodLimit / 10);
+        if(this.learnedCount >= this.nogoodLimit) this.nogoodLimit = this.learnedCount + this.learnedCount / 10 + 1;
+    }
+
+
+    // Whether the nogood is the reason for a fact that holds, and so cannot be deleted
+    private boolean Locked(int id) {
+        int forced = this.nogoods[id][0] ^ 1;
+        int placement = forced >> 1;
+        return Holds(forced) && this.reasons[placement] == NOGOOD && this.reasonData[placement] == id;
+    }
+
+
+    private void AddConflict(int fact) {
+        if(this.conflictSize == this.conflict.length) this.conflict = Arrays.copyOf(this.conflict, 2 * this.conflictSize);
+        this.conflict[this.conflictSize++] = fact;
+    }
+
+    private void AddExplained(int fact) {
+        if(this.explainedSize == this.explained.length) this.explained = Arrays.copyOf(this.explained, 2 * this.explainedSize);
+        this.explained[this.explainedSize++] = fact;
+    }
+
+
+    /**
+     * @param run - Run number, from 1.
+     *
+     * @return Term of the Luby sequence for the run.
+     */
+    private static long Luby(int run) {
+        int k = 1;
+        while((1L << k) - 1 < run) ++k;
+
+        // Runs 2^k - 1 end a block with 2^(k-1), everything else repeats the sequence from its start
+        while(run != (1L << k) - 1)
+        {
+            run -= (1 << (k - 1)) - 1;
+            k = 1;
+            while((1L << k) - 1 < run) ++k;
+        }
+        return 1L << (k - 1);
+    }
+
+}
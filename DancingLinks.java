@@ -0,0 +1,248 @@
+import java.util.function.BooleanSupplier;
+
+/**
+ * Exact-cover solving engine using Knuth's Dancing Links (Algorithm X). The grid is modelled as a matrix with one column
+ * per constraint (each Cell filled once, each number once per house of the Board's layout) and one row per candidate
+ * placement, stored in flat int arrays.
+ */
+public class DancingLinks {
+
+    private final int size;
+    private final int cellCount;
+    private final RegionLayout layout;
+
+    // Node 0 is the root, nodes 1..columnCount are the column headers, the rest are placements
+    private final int[] left;
+    private final int[] right;
+    private final int[] up;
+    private final int[] down;
+    private final int[] column;
+    private final int[] placement;
+    private final int[] columnSize;
+    private int nodeCount;
+
+    private final int[] chosenNodes;
+    private final int[] solutionPlacements;
+    private int solutions;
+    private int maximumSolutions;
+    private BooleanSupplier stop;
+    private boolean stopped;
+    private long nodes;
+
+
+    /**
+     * Build the exact-cover matrix for a board. Filled Cells only get a row for their value, unfilled Cells get a row
+     * for each of their candidates.
+     *
+     * @param board - Board to solve.
+     */
+    public DancingLinks(Board board) {
+        this.size = board.getSize();
+        this.cellCount = board.getCellCount();
+        this.layout = board.getLayout();
+
+        int columnCount = this.cellCount + this.layout.getHouses().length * this.size;
+        int nodeCount = 0;
+        for(int index = 0; index < this.cellCount; ++index)
+        {
+            int placements = board.isFilled(index) ? 1 : Candidates.Count(board.getCandidates(index));
+            nodeCount += placements * (1 + this.layout.getHousesOf(index).length);
+        }
+
+        int capacity = 1 + columnCount + nodeCount;
+        this.left = new int[capacity];
+        this.right = new int[capacity];
+        this.up = new int[capacity];
+        this.down = new int[capacity];
+        this.column = new int[capacity];
+        this.placement = new int[capacity];
+        this.columnSize = new int[columnCount + 1];
+
+        this.chosenNodes = new int[this.cellCount];
+        this.solutionPlacements = new int[this.cellCount];
+
+        CreateHeaders(columnCount);
+
+        for(int index = 0; index < this.cellCount; ++index)
+        {
+            if(board.isFilled(index))
+            {
+                AddPlacement(index, board.getValue(index));
+                continue;
+            }
+
+            for(long possible = board.getCandidates(index); possible != 0; possible &= possible - 1)
+            {
+                AddPlacement(index, Candidates.First(possible));
+            }
+        }
+    }
+
+
+    /**
+     * Search for solutions, stopping once the maximum is reached.
+     *
+     * @param maximumSolutions - Number of solutions to stop at.
+     *
+     * @return Number of solutions found.
+     */
+    public int Solve(int maximumSolutions) {
+        return Solve(maximumSolutions, null);
+    }
+
+    /**
+     * Search for solutions, stopping once the maximum is reached or the stop condition, checked every 1024 nodes, says
+     * to give up.
+     *
+     * @param maximumSolutions - Number of solutions to stop at.
+     * @param stop - Returns true once the search should give up, or null to always finish.
+     *
+     * @return Number of solutions found, which only counts those found before stopping if isStopped.
+     */
+    public int Solve(int maximumSolutions, BooleanSupplier stop) {
+        this.solutions = 0;
+        this.maximumSolutions = maximumSolutions;
+        this.stop = stop;
+        this.stopped = false;
+
+        Search(0);
+        return this.solutions;
+    }
+
+    /**
+     * @return Whether the last Solve gave up before finishing.
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+
+    /**
+     * Write the last solution found onto a board of the same shape.
+     *
+     * @param board - Board to fill.
+     */
+    public void WriteSolution(Board board) {
+        for(int chosen : this.solutionPlacements)
+        {
+            board.Load(chosen / this.size, chosen % this.size, 0);
+        }
+    }
+
+
+    private boolean Search(int depth) {
+        if(this.right[0] == 0)
+        {
+            for(int i = 0; i < depth; ++i) this.solutionPlacements[i] = this.placement[this.chosenNodes[i]];
+            return ++this.solutions >= this.maximumSolutions;
+        }
+
+        if(this.stop != null && (++this.nodes & 1023) == 0 && this.stop.getAsBoolean())
+        {
+            this.stopped = true;
+            return true;
+        }
+
+        // Choose the constraint with the fewest placements left
+        int chosenColumn = this.right[0];
+        for(int c = this.right[chosenColumn]; c != 0; c = this.right[c])
+        {
+            if(this.columnSize[c] < this.columnSize[chosenColumn]) chosenColumn = c;
+        }
+        if(this.columnSize[chosenColumn] == 0) return false;
+
+        Cover(chosenColumn);
+
+        boolean finished = false;
+        for(int row = this.down[chosenColumn]; row != chosenColumn && !finished; row = this.down[row])
+        {
+            this.chosenNodes[depth] = row;
+            for(int node = this.right[row]; node != row; node = this.right[node]) Cover(this.column[node]);
+
+            finished = Search(depth + 1);
+
+            for(int node = this.left[row]; node != row; node = this.left[node]) Uncover(this.column[node]);
+        }
+
+        Uncover(chosenColumn);
+        return finished;
+    }
+
+
+    private void Cover(int c) {
+        this.right[this.left[c]] = this.right[c];
+        this.left[this.right[c]] = this.left[c];
+
+        for(int row = this.down[c]; row != c; row = this.down[row])
+        {
+            for(int node = this.right[row]; node != row; node = this.right[node])
+            {
+                this.down[this.up[node]] = this.down[node];
+                this.up[this.down[node]] = this.up[node];
+                --this.columnSize[this.column[node]];
+            }
+        }
+    }
+
+
+    private void Uncover(int c) {
+        for(int row = this.up[c]; row != c; row = this.up[row])
+        {
+            for(int node = this.left[row]; node != row; node = this.left[node])
+            {
+                ++this.columnSize[this.column[node]];
+                this.down[this.up[node]] = node;
+                this.up[this.down[node]] = node;
+            }
+        }
+
+        this.right[this.left[c]] = c;
+        this.left[this.right[c]] = c;
+    }
+
+
+    private void CreateHeaders(int columnCount) {
+        for(int c = 0; c <= columnCount; ++c)
+        {
+            this.left[c] = c == 0 ? columnCount : c - 1;
+            this.right[c] = c == columnCount ? 0 : c + 1;
+            this.up[c] = c;
+            this.down[c] = c;
+            this.column[c] = c;
+        }
+        this.nodeCount = columnCount + 1;
+    }
+
+
+    /**
+     * Add the matrix row for placing a number in a Cell, linking one node into its Cell constraint and one into the
+     * constraint of the number in each house holding the Cell.
+     *
+     * @param index - Index of the Cell.
+     * @param number - Number placed.
+     */
+    private void AddPlacement(int index, int number) {
+        int[] houses = this.layout.getHousesOf(index);
+        int last = houses.length;
+
+        int first = this.nodeCount;
+        for(int i = 0; i <= last; ++i)
+        {
+            int node = this.nodeCount++;
+            int header = (i == 0 ? index : this.cellCount + houses[i - 1] * this.size + number) + 1;
+
+            this.column[node] = header;
+            this.placement[node] = index * this.size + number;
+
+            this.up[node] = this.up[header];
+            this.down[node] = header;
+            this.down[this.up[header]] = node;
+            this.up[header] = node;
+            ++this.columnSize[header];
+
+            this.left[node] = i == 0 ? node + last : node - 1;
+            this.right[node] = i == last ? first : node + 1;
+        }
+    }
+
+}
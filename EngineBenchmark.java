@@ -0,0 +1,93 @@
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compare the solver engines on the same puzzle sets. Run with no arguments; prints the mean time per puzzle for finding
+ * the first solution and for counting up to two solutions. Before timing an engine, it checks that a SolveSession
+ * searching with it leaves the session's board as it was.
+ */
+public class EngineBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+
+        Run("4x4 random", 2, 2, BenchmarkPuzzles.Dig(2, 2, 0.6, 50, random));
+        Run("9x9 random", 3, 3, BenchmarkPuzzles.Dig(3, 3, 0.6, 50, random));
+        Run("9x9 hard", 3, 3, BenchmarkPuzzles.Parse(BenchmarkPuzzles.HARD_9X9));
+        Run("16x16 random", 4, 4, BenchmarkPuzzles.Dig(4, 4, 0.5, 10, random));
+    }
+
+
+    private static void Run(String name, int blockRows, int blockColumns, List<Integer[]> puzzles) {
+        for(SolverEngine engine : SolverEngine.values())
+        {
+            CheckSession(blockRows, blockColumns, puzzles, engine);
+            for(int round = 0; round < WARMUP_ROUNDS; ++round) Time(blockRows, blockColumns, puzzles, engine, 1);
+
+            long solveNanos = 0;
+            long countNanos = 0;
+            for(int round = 0; round < MEASURED_ROUNDS; ++round)
+            {
+                solveNanos += Time(blockRows, blockColumns, puzzles, engine, 1);
+                countNanos += Time(blockRows, blockColumns, puzzles, engine, 2);
+            }
+
+            double runs = (double) MEASURED_ROUNDS * puzzles.size();
+            System.out.printf("%-14s %-14s first: %10.3f ms   count<=2: %10.3f ms%n",
+                    name, engine, solveNanos / runs / 1e6, countNanos / runs / 1e6);
+        }
+    }
+
+
+    /**
+     * Check that IsSolvable and IsUnique leave a session's board unchanged with the engine, with and without propagation.
+     *
+     * @throws IllegalStateException If a Cell's value or candidates changed.
+     */
+    private static void CheckSession(int blockRows, int blockColumns, List<Integer[]> puzzles, SolverEngine engine) {
+        for(Propagator propagator : List.of(Propagator.None(), Propagator.Default()))
+        {
+            for(Integer[] puzzle : puzzles)
+            {
+                Grid grid = new Grid(blockRows, blockColumns);
+                grid.LoadGrid(puzzle);
+                grid.setEngine(engine);
+                grid.setPropagator(propagator);
+
+                SolveSession session = new SolveSession(grid);
+                Board board = new Board(session.getBoard());
+                session.IsSolvable();
+                session.IsUnique();
+
+                for(int index = 0; index < board.getCellCount(); ++index)
+                {
+                    if(session.getBoard().getValue(index) != board.getValue(index) || session.getBoard().getCandidates(index) != board.getCandidates(index))
+                    {
+                        throw new IllegalStateException(engine + " changed Cell " + index + " of a SolveSession's board");
+                    }
+                }
+            }
+        }
+    }
+
+
+    private static long Time(int blockRows, int blockColumns, List<Integer[]> puzzles, SolverEngine engine, int maximumSolutions) {
+        long nanos = 0;
+        for(Integer[] puzzle : puzzles)
+        {
+            Grid grid = new Grid(blockRows, blockColumns);
+            grid.LoadGrid(puzzle);
+            grid.setEngine(engine);
+
+            long start = System.nanoTime();
+            grid.CountSolutions(grid.CreateUnfilledIndexsList(), maximumSolutions);
+            nanos += System.nanoTime() - start;
+        }
+        return nanos;
+    }
+
+}
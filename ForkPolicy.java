@@ -0,0 +1,79 @@
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Decides whether a SolveGrid task splits its branches into forked tasks or searches them in place. Branches are always
+ * forked near the top of the search tree, and below that only while the pool is running short of queued work.
+ */
+public class ForkPolicy {
+
+    private final int maximumForkDepth;
+    private final int surplusThreshold;
+
+
+    /**
+     * @param maximumForkDepth - Depth above which branches are always forked.
+     * @param surplusThreshold - Below the fork depth, fork only while the worker has fewer surplus queued tasks than
+     *                           this. 0 disables forking below the fork depth.
+     */
+    public ForkPolicy(int maximumForkDepth, int surplusThreshold) {
+        this.maximumForkDepth = maximumForkDepth;
+        this.surplusThreshold = surplusThreshold;
+    }
+
+
+    /**
+     * Fork the first few levels, then only when idle workers have nothing to steal.
+     */
+    public static ForkPolicy Adaptive() {
+        return new ForkPolicy(2, 2);
+    }
+
+    /**
+     * Fork only the first levels of the tree, whatever the load of the pool.
+     */
+    public static ForkPolicy FixedDepth(int maximumForkDepth) {
+        return new ForkPolicy(maximumForkDepth, 0);
+    }
+
+    /**
+     * Fork every branch at every level.
+     */
+    public static ForkPolicy Always() {
+        return new ForkPolicy(Integer.MAX_VALUE, 0);
+    }
+
+    /**
+     * Never fork, searching the whole tree in place in one task.
+     */
+    public static ForkPolicy Sequential() {
+        return new ForkPolicy(0, 0);
+    }
+
+
+    public int getMaximumForkDepth() {
+        return maximumForkDepth;
+    }
+
+    public int getSurplusThreshold() {
+        return surplusThreshold;
+    }
+
+
+    /**
+     * @param depth - Depth of the search node whose branches are about to be explored.
+     *
+     * @return Whether the branches should be forked as separate tasks.
+     */
+    public boolean ShouldFork(int depth) {
+        if(depth < this.maximumForkDepth) return true;
+
+        return this.surplusThreshold > 0 && ForkJoinTask.getSurplusQueuedTaskCount() < this.surplusThreshold;
+    }
+
+
+    @Override
+    public String toString() {
+        return "ForkPolicy[depth=" + maximumForkDepth + ", surplus=" + surplusThreshold + "]";
+    }
+
+}
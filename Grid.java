@@ -1,3 +1,5 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.stream.IntStream;
 
@@ -7,51 +9,139 @@ public class Grid {
     private final int blockRows;
     private final int blockColumns;
 
+    private final RegionLayout layout;
     private Cell[][] cellsGrid;
-    private Cell[][][][] cellsBlocksGrid;
+    // The same Cells by index, so walks over the layout's tables need no coordinates
+    private Cell[] cells;
+
+    private Propagator propagator = Propagator.Default();
+    private SolverEngine engine = SolverEngine.BACKTRACKING;
 
     public Grid(int blockSize) {
         this(blockSize, blockSize);
     }
 
     public Grid(int blockRows, int blockColumns) {
-        this.blockRows = blockRows;
-        this.blockColumns = blockColumns;
-        this.size = blockRows * blockColumns;
+        this(RegionLayout.Standard(blockRows, blockColumns));
+    }
+
+    /**
+     * @param layout - Houses and peers of the grid, e.g. a jigsaw or diagonal layout, shared with every copy.
+     */
+    public Grid(RegionLayout layout) {
+        this.layout = layout;
+        this.blockRows = layout.getBlockRows();
+        this.blockColumns = layout.getBlockColumns();
+        this.size = layout.getSize();
 
         this.cellsGrid = new Cell[this.size][this.size];
-        this.cellsBlocksGrid = new Cell[this.blockColumns][this.blockRows] [this.blockRows][this.blockColumns];
+        this.cells = new Cell[this.size * this.size];
     }
 
     public Grid(Grid grid) {
         this.size = grid.size;
         this.blockRows = grid.blockRows;
         this.blockColumns = grid.blockColumns;
+        this.layout = grid.layout;
 
         this.cellsGrid = CopyGrid(grid.cellsGrid);
-        this.cellsBlocksGrid = ConvertToGridBlocks(this.cellsGrid);
+        this.cells = Flatten(this.cellsGrid);
+        this.propagator = grid.propagator;
+        this.engine = grid.engine;
+    }
+
+    public int getSize() {
+        return size;
     }
 
     public Cell[][] getCellsGrid() {
         return cellsGrid;
     }
 
+    public RegionLayout getLayout() {
+        return layout;
+    }
+
+    public Propagator getPropagator() {
+        return propagator;
+    }
+
+    /**
+     * @param propagator - Propagation pipeline run after every assignment made by SolveGrid and CountSolutions.
+     */
+    public void setPropagator(Propagator propagator) {
+        this.propagator = propagator;
+    }
+
+    public SolverEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * @param engine - Search engine used by SolveGrid and CountSolutions.
+     */
+    public void setEngine(SolverEngine engine) {
+        this.engine = engine;
+    }
+
 
     /**
      * Creates an empty 2D grid and a 4D 'block' version of Cells/
      */
     public void CreateGrid() {
-        CreateGrid(new Integer[this.size * this.size]);
+        CreateGrid(System.nanoTime());
+    }
+
+
+    /**
+     * Fill the grid with a random complete grid from GridGenerator, which needs no search, then dig a puzzle from it.
+     * Layouts other than the standard one are filled by solving an empty grid instead.
+     *
+     * @param seed - Seed of the complete grid, for a repeatable grid.
+     */
+    public void CreateGrid(long seed) {
+        if(!this.layout.isStandard())
+        {
+            CreateGrid(new Integer[this.size * this.size]);
+            return;
+        }
+
+        byte[] values = new GridGenerator(this.blockRows, this.blockColumns, seed).Next();
+
+        Integer[] setGrid = new Integer[values.length];
+        for(int index = 0; index < values.length; ++index) setGrid[index] = (int) values[index];
+        LoadGrid(setGrid);
+        PrintAndDig();
     }
 
 
     public void CreateGrid(Integer[] setGrid) {
+        LoadGrid(setGrid);
+
+        SolveGrid(CreateUnfilledIndexsList(), 1);
+        PrintAndDig();
+    }
+
+
+    private void PrintAndDig() {
+        System.out.println(PrintBlockGrid());
+        System.out.println(ValidateGrid());
+        CreatePuzzleGrid(CreateAllIndexsList());
+        System.out.println(PrintBlockGrid());
+    }
+
+
+    /**
+     * Fill the grid with the given numbers and update the possible numbers of the remaining Cells, without solving.
+     *
+     * @param setGrid - Number for each Cell index, or null for an unfilled Cell.
+     */
+    public void LoadGrid(Integer[] setGrid) {
         LinkedList<Cell> filledCells = new LinkedList<>();
 
         for(int index = 0; index < this.size * this.size; ++index)
         {
             int[] coords = ConvertToCoords(index);
-            int[] blockCoords = ConvertToBlockCoords(coords[0], coords[1]);
 
             Cell newCell = new Cell(this.size, index, coords[0], coords[1]);
             if(setGrid[index] != null)
@@ -61,15 +151,10 @@ public class Grid {
             }
 
             this.cellsGrid[coords[0]][coords[1]] = newCell;
-            this.cellsBlocksGrid[blockCoords[0]][blockCoords[1]] [blockCoords[2]][blockCoords[3]] = newCell;
+            this.cells[index] = newCell;
         }
 
         for(Cell cell : filledCells) RemovePossibleNumbers(cell, cell.getSolution());
-
-        SolveGrid(CreateUnfilledIndexsList(), 1);
-        System.out.println(PrintBlockGrid());
-        System.out.println(ValidateGrid());
-        CreatePuzzleGrid(CreateAllIndexsList());
     }
 
 
@@ -102,7 +187,8 @@ public class Grid {
 
 
     /**
-     * Using the list of indices of unfilled Cells, recursively find a valid solved grid via DFS.
+     * Using the list of indices of unfilled Cells, recursively find a valid solved grid via DFS. If the maximum number of
+     * solutions is reached, the grid is left holding the last solution found, otherwise it is left unchanged.
      *
      * @param unfilledIndexs - List of Cells that are yet to be filled.
      * @param maximumSolutions - Flag to indicate whether to find multiple solutions.
@@ -111,40 +197,94 @@ public class Grid {
      */
     public int SolveGrid(LinkedList<Integer> unfilledIndexs, int maximumSolutions) {
 
-        // Base case
-        // If no unfilled Cells left, grid is solved
-        if(unfilledIndexs.isEmpty()) return 1;
+        PhaseEvent toBoard = PhaseEvent.Begin("ToBoard", this.size);
+        Board board = ToBoard();
+        toBoard.End();
 
+        int solutions = Search(board, unfilledIndexs, maximumSolutions);
 
-        // Create a saved state copy of the grid
-        Cell[][] savedGridState = CopyGrid(this.cellsGrid);
+        if(solutions >= maximumSolutions)
+        {
+            PhaseEvent loadBoard = PhaseEvent.Begin("LoadBoard", this.size);
+            LoadBoard(board);
+            loadBoard.End();
+        }
+        return solutions;
+    }
+
+
+    /**
+     * Count the solutions of the grid up to a maximum, without changing the grid.
+     *
+     * @param unfilledIndexs - List of Cells that are yet to be filled.
+     * @param maximumSolutions - Number of solutions to stop counting at.
+     *
+     * @return Number of solutions found
+     */
+    public int CountSolutions(LinkedList<Integer> unfilledIndexs, int maximumSolutions) {
+        return Search(ToBoard(), unfilledIndexs, maximumSolutions);
+    }
 
 
-        // Select unfilled Cell and remove index from list
-        Cell chosenCell = SelectUnfilledCellIndex(unfilledIndexs);
+    /**
+     * Search the board with the grid's engine, leaving it holding the last solution found if the maximum is reached.
+     *
+     * @param board - Board to search.
+     * @param unfilledIndexs - List of Cells that are yet to be filled.
+     * @param maximumSolutions - Number of solutions to stop at.
+     *
+     * @return Number of solutions found
+     */
+    private int Search(Board board, LinkedList<Integer> unfilledIndexs, int maximumSolutions) {
+        return new BoardSolver(this.propagator, this.engine).Solve(board, ToIndexArray(unfilledIndexs), maximumSolutions);
+    }
 
-        LinkedList<Integer> updatedUnfilledCellsIndex  = new LinkedList<>(unfilledIndexs);
-        updatedUnfilledCellsIndex.removeAll(List.of(chosenCell.getIndex()));
 
+    /**
+     * Create a flat Board holding the given Cells and candidates of the grid.
+     *
+     * @return The new Board.
+     */
+    public Board ToBoard() {
+        Board board = new Board(this.layout);
 
-        // Iterate through possible solutions
-        int solutions = 0;
-        for(Integer chosenNumber : new LinkedList<>(chosenCell.getPossibleNumbers()))
+        int index = 0;
+        for(Cell[] cellsRow : this.cellsGrid)
         {
-            // Update all Cells's possibleNumbers lists
-            Cell chosenCellCopy = this.cellsGrid[chosenCell.getRow()][chosenCell.getColumn()];
-            RemovePossibleNumbers(chosenCellCopy, chosenNumber);
+            for(Cell cell : cellsRow)
+            {
+                board.Load(index++, cell.isGiven() ? cell.getSolution() : Board.EMPTY, cell.getPossibleMask());
+            }
+        }
+        return board;
+    }
 
-            // Check next possible solution via effectively DFS, and increment if a solution is found
-            solutions += SolveGrid(updatedUnfilledCellsIndex, maximumSolutions);
-            if(solutions >= maximumSolutions) break;
 
-            // If dead-end reached -> Restore saved state and try next possible number
-            RestoreState(savedGridState);
+    /**
+     * Copy the values and candidates of a Board back onto the Cells of the grid.
+     *
+     * @param board - Board of the same shape as the grid.
+     */
+    public void LoadBoard(Board board) {
+        int index = 0;
+        for(Cell[] cellsRow : this.cellsGrid)
+        {
+            for(Cell cell : cellsRow)
+            {
+                if(board.isFilled(index) && !cell.isGiven()) cell.setSolution(board.getValue(index));
+                cell.setPossibleMask(board.getCandidates(index));
+                ++index;
+            }
         }
+    }
 
-        // Dead-end
-        return solutions;
+
+    private static int[] ToIndexArray(LinkedList<Integer> indexs) {
+        int[] array = new int[indexs.size()];
+
+        int i = 0;
+        for(Integer index : indexs) array[i++] = index;
+        return array;
     }
 
 
@@ -166,7 +306,7 @@ public class Grid {
 
             if(null == chosenCell) chosenCell = cell;
 
-            if(cell.getPossibleNumbers().size() < chosenCell.getPossibleNumbers().size()) chosenCell = cell;
+            if(cell.getPossibleCount() < chosenCell.getPossibleCount()) chosenCell = cell;
 
         }
         return chosenCell;
@@ -174,57 +314,38 @@ public class Grid {
 
 
     /**
-     * Check the grid for repeated numbers in each row, column, and block.
+     * Check the grid for repeated numbers in each house of its layout, and for unfilled Cells left without any possible
+     * numbers. Works on partial grids as well as full ones, with one bitmask pass per house. Use a GridValidator on
+     * ToBoard() to find out which house and number failed.
      *
      * @return Boolean of whether the grid is valid.
      */
     public boolean ValidateGrid() {
-        for(Cell[] cellsRow : this.cellsGrid) {
-            for(Cell cell : cellsRow) {
-
-                int chosenRow = cell.getRow();
-                int chosenColumn = cell.getColumn();
-
-                // Get all solution numbers of current row
-                LinkedList<Integer> row = new LinkedList<>
-                        (
-                                Arrays.stream(this.cellsGrid[chosenRow])
-                                        .map(Cell :: getSolution)
-                                        .toList()
-                        );
-
-                // Get all solution numbers of current colummn
-                LinkedList<Integer> column = new LinkedList<>();
-                for(int i = 0; i < this.size; ++i) column.add(this.cellsGrid[i][chosenColumn].getSolution());
-
-                // Get all solution numbers of current block
-                int[] blockCoords = ConvertToBlockCoords(chosenRow, chosenColumn);
-                LinkedList<Integer> block = new LinkedList<>
-                        (
-                                Arrays.stream(Arrays.stream(this.cellsBlocksGrid[blockCoords[0]][blockCoords[1]])
-                                                .map(blockRow -> Arrays.stream(blockRow)
-                                                        .map(Cell :: getSolution)
-                                                        .toList()
-                                                        .toArray(new Integer[this.blockColumns])
-                                                )
-                                                .toList()
-                                                .toArray(new Integer[this.blockRows][]))
-                                        .flatMap(Arrays :: stream)
-                                        .toList()
-                        );
-
-                // Check if current number appears more than once (i.e. other than itself)
-                Integer current = cell.getSolution();
-                if(row.stream().filter(current :: equals).count() > 1
-                        || column.stream().filter(current :: equals).count() > 1
-                        || block.stream().filter(current :: equals).count() > 1
-                ) return false;
-
+        for(int[] house : this.layout.getHouses())
+        {
+            long seen = 0;
+            for(int index : house)
+            {
+                long bit = SolutionBit(this.cells[index]);
+                if((seen & bit) != 0) return false;
+                seen |= bit;
             }
         }
+
+        for(Cell cell : this.cells) if(cell.getSolution() == null && cell.getPossibleMask() == 0) return false;
         return true;
     }
 
+    private static Cell[] Flatten(Cell[][] cellsGrid) {
+        Cell[] flat = new Cell[cellsGrid.length * cellsGrid.length];
+        for(int row = 0; row < cellsGrid.length; ++row) System.arraycopy(cellsGrid[row], 0, flat, row * cellsGrid.length, cellsGrid.length);
+        return flat;
+    }
+
+    private static long SolutionBit(Cell cell) {
+        return cell.getSolution() == null ? 0 : Candidates.Bit(cell.getSolution());
+    }
+
 
     /**
      * Create a Sudoku puzzle that has a unique single solution.
@@ -241,9 +362,6 @@ public class Grid {
         for(Integer cellIndex : cellsIndexs)
         {
             //PrintBlockGrid();
-            // Save the grid before removing the current Cell
-            Cell[][] beforeRemovalState = CopyGrid(this.cellsGrid);
-
             // Remove Cell at current index
             int[] coords = ConvertToCoords(cellIndex);
             Cell cell = this.cellsGrid[coords[0]][coords[1]];
@@ -253,49 +371,25 @@ public class Grid {
 
 
             // Get the number of solutions
-            int solutions = SolveGrid(unfilledIndexs, 2);
+            int solutions = CountSolutions(unfilledIndexs, 2);
 
 
-            // Restore the board to before most recent removal and break out
+            // Put the Cell back to before most recent removal and break out
             if(solutions > 1) {
                 unfilledIndexs.removeAll(List.of(cellIndex));
-                RestoreState(beforeRemovalState);
+                cell.setSolution(cell.getSolution());
                 //break;
             }
         }
 
-        //AddPossibleNumbers(unfilledIndexs);
+        AddPossibleNumbers(unfilledIndexs);
 
-        System.out.println(PrintBlockGrid());
         //System.out.println(SolveGrid(unfilledIndexs, 2));
 
 
     }
 
 
-    /**
-     * Convert the coordinates that refer to the row and column to a corresponding block coordinates that refer to the
-     * block and offsets within the block.
-     *
-     * @param row - Row coordinate.
-     * @param column - Column coordinate.
-     *
-     * @return An array that holds the block's row coordinate, column coordinate, Cell's row offset, and Cell's column
-     * offset.
-     */
-    public int[] ConvertToBlockCoords(int row, int column) {
-        int[] blockCoords = new int[4];
-
-        blockCoords[0] = row / this.blockRows;
-        blockCoords[1] = column / this.blockColumns;
-
-        blockCoords[2] = row % this.blockRows;
-        blockCoords[3] = column % this.blockColumns;
-
-        return blockCoords;
-    }
-
-
     /**
      * Convert the index referring to a Cell in a flat grid to corresponding row and column coordinates
      *
@@ -321,8 +415,10 @@ public class Grid {
      * @return A 2D array copy that is a new object.
      */
     public Cell[][] CopyGrid(Cell[][] cellsGrid) {
+        long start = SearchMetrics.ENABLED ? System.nanoTime() : 0;
+        PhaseEvent event = PhaseEvent.Begin("CopyGrid", this.size);
 
-        return Arrays.stream(cellsGrid)
+        Cell[][] copy = Arrays.stream(cellsGrid)
                         .map((Cell[] cellRow) -> Arrays.stream(cellRow)
                                 .map(Cell::new)
                                 .toList()
@@ -330,77 +426,46 @@ public class Grid {
                         )
                         .toList()
                         .toArray(new Cell[this.size][]);
-    }
-
-
-    /**
-     * Convert the 2D grid of Cells to a 4D grid of blocks
-     *
-     * @param cellsGrid - 2D grid to convert
-     *
-     * @return The 4D representation of the grid as blocks
-     */
-    public Cell[][] [][] ConvertToGridBlocks(Cell[][] cellsGrid) {
 
-        Cell[][] [][] newCellsBlocksGrid = new Cell[this.blockColumns][this.blockRows] [this.blockRows][this.blockColumns];
-
-        for(int row = 0; row < this.size; ++row)
-        {
-            for(int column = 0; column < this.size; ++column)
-            {
-                int[] blockCoords = ConvertToBlockCoords(row, column);
-
-                Cell newCell = cellsGrid[row][column];
-                newCellsBlocksGrid[blockCoords[0]][blockCoords[1]] [blockCoords[2]][blockCoords[3]] = newCell;
-            }
-        }
-
-        return newCellsBlocksGrid;
+        event.End();
+        if(SearchMetrics.ENABLED) SearchMetrics.CountCopy(System.nanoTime() - start);
+        return copy;
     }
 
 
     /**
-     * Restore the cellsGrid and cellsBlockGrid attributes to the saved state.
+     * Restore the cellsGrid attribute to the saved state.
      *
      * @param savedGridState - The saved state of cellsGrid to be restored.
      */
     public void RestoreState(Cell[][] savedGridState) {
+        long start = SearchMetrics.ENABLED ? System.nanoTime() : 0;
+        PhaseEvent event = PhaseEvent.Begin("RestoreState", this.size);
+
         this.cellsGrid = CopyGrid(savedGridState);
-        this.cellsBlocksGrid = ConvertToGridBlocks(this.cellsGrid);
+        this.cells = Flatten(this.cellsGrid);
+
+        event.End();
+        if(SearchMetrics.ENABLED) SearchMetrics.CountRestore(System.nanoTime() - start);
     }
 
 
     /**
-     * Remove the chosen number from the possible numbers remaining for all Cells in same row, column, and block as the
-     * Cell selected.
+     * Remove the chosen number from the possible numbers remaining for all Cells sharing a house with the Cell
+     * selected, walking the layout's peer table.
      *
      * @param chosenCell - Cell that is selected.
      * @param chosenNumber - Value that is set to the Cell.
      */
-    public void RemovePossibleNumbers(Cell chosenCell, Integer chosenNumber) {
+    public void RemovePossibleNumbers(Cell chosenCell, int chosenNumber) {
 
         // Update chosen Cell
         chosenCell.setSolution(chosenNumber);
-        chosenCell.getPossibleNumbers().clear();
-
+        chosenCell.setPossibleMask(0);
 
-        // Get the row, column, and block Cell is in
-        int chosenRow = chosenCell.getRow();
-        int chosenColumn = chosenCell.getColumn();
-
-        Cell[] cellsRow = this.cellsGrid[chosenRow];
-        Cell[] cellsColumn = new Cell[this.size];
-        for(int i = 0; i < this.size; ++i) cellsColumn[i] = this.cellsGrid[i][chosenColumn];
-
-        int[] blockCoords = ConvertToBlockCoords(chosenRow, chosenColumn);
-        Cell[][] cellsBlock = this.cellsBlocksGrid[blockCoords[0]][blockCoords[1]];
-
-
-        // Remove chosen number from possible numbers of Cells in same row, column, block
-        for(Cell cell : cellsRow) cell.getPossibleNumbers().remove(chosenNumber);
-        for(Cell cell : cellsColumn) cell.getPossibleNumbers().remove(chosenNumber);
-        for(Cell[] cellsBlockCols : cellsBlock) for(Cell cell : cellsBlockCols) cell.getPossibleNumbers().remove(chosenNumber);
 
+        // Remove chosen number from possible numbers of every peer
+        for(int peer : this.layout.getPeers(chosenCell.getIndex())) this.cells[peer].RemovePossibleNumber(chosenNumber);
     }
 
 
@@ -414,28 +479,17 @@ public class Grid {
         for(int unfilledIndex : unfilledIndexs)
         {
             // Reset the possible numbers of each unfilled Cell to the full possibilities
-            int[] coords = ConvertToCoords(unfilledIndex);
-            Cell unfilledCell = this.cellsGrid[coords[0]][coords[1]];
-
-            unfilledCell.getPossibleNumbers().addAll(unfilledCell.FillPossibleNumbers(this.size));
-
-
-            // Get the row, column, and block Cell is in
-            int chosenRow = unfilledCell.getRow();
-            int chosenColumn = unfilledCell.getColumn();
-
-            Cell[] cellsRow = this.cellsGrid[chosenRow];
-            Cell[] cellsColumn = new Cell[this.size];
-            for(int i = 0; i < this.size; ++i) cellsColumn[i] = this.cellsGrid[i][chosenColumn];
-
-            int[] blockCoords = ConvertToBlockCoords(chosenRow, chosenColumn);
-            Cell[][] cellsBlock = this.cellsBlocksGrid[blockCoords[0]][blockCoords[1]];
+            Cell unfilledCell = this.cells[unfilledIndex];
+            long possible = unfilledCell.FillPossibleNumbers(this.size);
 
 
-            // Remove all numbers that appear in the row, column, and block from the unfilled Cell's possibilities
-            for(Cell cell : cellsRow) if(cell.isGiven()) unfilledCell.getPossibleNumbers().remove(cell.getSolution());
-            for(Cell cell : cellsColumn) if(cell.isGiven()) unfilledCell.getPossibleNumbers().remove(cell.getSolution());
-            for(Cell[] cellsBlockCols : cellsBlock) for(Cell cell : cellsBlockCols) if(cell.isGiven()) unfilledCell.getPossibleNumbers().remove(cell.getSolution());
+            // Remove all numbers given in any peer from the unfilled Cell's possibilities
+            for(int peer : this.layout.getPeers(unfilledIndex))
+            {
+                Cell cell = this.cells[peer];
+                if(cell.isGiven()) possible &= ~Candidates.Bit(cell.getSolution());
+            }
+            unfilledCell.setPossibleMask(possible);
         }
     }
 
@@ -454,27 +508,58 @@ public class Grid {
      * Print the grid in a block representation
      */
     public String PrintBlockGrid() {
-        String output = "";
+        StringBuilder output = new StringBuilder(this.size * (4 * this.size + 3 * this.size / this.blockColumns + 2) + 16);
+        try
+        {
+            WriteBlockGrid(output);
+        }
+        catch(IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        return output.toString();
+    }
+
+
+    /**
+     * Write the block representation of PrintBlockGrid straight to a destination, one character at a time so nothing is
+     * allocated per Cell.
+     *
+     * @param output - Destination, e.g. a StringBuilder or a buffered Writer.
+     *
+     * @throws IOException If the destination fails.
+     */
+    public void WriteBlockGrid(Appendable output) throws IOException {
         for(int x = 0; x < this.size; ++x)
         {
             for(int y = 0; y < this.size; ++y)
             {
-                int[] blockCoords = ConvertToBlockCoords(x,y);
-                Cell cell = this.cellsBlocksGrid[blockCoords[0]][blockCoords[1]] [blockCoords[2]][blockCoords[3]];
-                output +=  "[" + (cell.isGiven() ? cell.getSolution() : " ") + "]";
-                //System.out.print(cell.getPossibleNumbers());
-
-                if(y != this.size - 1)output += ((y+1) % this.blockColumns == 0) ? "   " : "";
+                Cell cell = this.cellsGrid[x][y];
+                output.append('[');
+                if(cell.isGiven()) AppendNumber(output, cell.getSolution());
+                else output.append(' ');
+                output.append(']');
 
+                if(y != this.size - 1 && (y+1) % this.blockColumns == 0) output.append("   ");
             }
-            output += "\n";
-            if( (x+1) % this.blockRows == 0 ) output += "\n";
+            output.append('\n');
+            if( (x+1) % this.blockRows == 0 ) output.append('\n');
         }
 
-        output += "----------";
-        return output;
+        output.append("----------");
+    }
 
+
+    private static void AppendNumber(Appendable output, int number) throws IOException {
+        if(number < 0)
+        {
+            output.append('-');
+            number = -number;
+        }
+        if(number >= 10) AppendNumber(output, number / 10);
+        output.append((char) ('0' + number % 10));
     }
 
 
+
 }
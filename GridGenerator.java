@@ -0,0 +1,175 @@
+import java.util.SplittableRandom;
+
+/**
+ * Generates random complete grids without searching. Each grid starts from a fixed valid pattern, then the bands, the
+ * rows within each band, the stacks, the columns within each stack and the numbers are permuted at random, and square
+ * shapes are transposed half the time. Every one of those permutations keeps the grid valid, so no grid is ever
+ * checked or retried.
+ * <p>
+ * The grids are only those reachable from the pattern by these permutations, not a uniform sample of all complete
+ * grids, which is fine as the starting point for digging puzzles or for benchmark sets. The same seed always gives the
+ * same sequence of grids.
+ */
+public class GridGenerator {
+
+    private final int blockRows;
+    private final int blockColumns;
+    private final int size;
+    private final int cellCount;
+    private final SplittableRandom random;
+
+    // Pattern number of each row's first Cell; the number then rises by one per column
+    private final int[] rowStarts;
+
+    private final int[] rows;
+    private final int[] columns;
+    private final int[] bands;
+    private final int[] stacks;
+    private final byte[] numbers;
+
+    private long generated;
+
+
+    /**
+     * @param blockRows - Number of rows in a block.
+     * @param blockColumns - Number of columns in a block.
+     * @param seed - Seed for the permutations.
+     */
+    public GridGenerator(int blockRows, int blockColumns, long seed) {
+        this(blockRows, blockColumns, new SplittableRandom(seed));
+    }
+
+    /**
+     * @param blockRows - Number of rows in a block.
+     * @param blockColumns - Number of columns in a block.
+     * @param random - Source of randomness, owned by the generator from then on.
+     */
+    public GridGenerator(int blockRows, int blockColumns, SplittableRandom random) {
+        this.blockRows = blockRows;
+        this.blockColumns = blockColumns;
+        this.size = blockRows * blockColumns;
+        this.cellCount = this.size * this.size;
+        this.random = random;
+
+        // Row i of band b starts at i * blockColumns + b, so each block and each column holds every number once
+        this.rowStarts = new int[this.size];
+        for(int row = 0; row < this.size; ++row) this.rowStarts[row] = (row % blockRows) * blockColumns + row / blockRows;
+
+        this.rows = new int[this.size];
+        this.columns = new int[this.size];
+        this.bands = new int[blockColumns];
+        this.stacks = new int[blockRows];
+        this.numbers = new byte[this.size];
+    }
+
+
+    public int getBlockRows() {
+        return blockRows;
+    }
+
+    public int getBlockColumns() {
+        return blockColumns;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getGenerated() {
+        return generated;
+    }
+
+
+    /**
+     * @return Value of each Cell of a new complete grid.
+     */
+    public byte[] Next() {
+        byte[] grid = new byte[this.cellCount];
+        Next(grid);
+        return grid;
+    }
+
+
+    /**
+     * Fill an array with a new complete grid, for callers that reuse one array across grids.
+     *
+     * @param grid - Array of getSize() squared values, overwritten.
+     */
+    public void Next(byte[] grid) {
+        if(grid.length != this.cellCount) throw new IllegalArgumentException("Grid of " + grid.length + " Cells, expected " + this.cellCount);
+
+        Permute(this.rows, this.bands, this.blockRows);
+        Permute(this.columns, this.stacks, this.blockColumns);
+
+        for(int i = 0; i < this.size; ++i) this.numbers[i] = (byte) i;
+        Shuffle(this.numbers, this.random);
+
+        boolean transpose = this.blockRows == this.blockColumns && this.random.nextBoolean();
+        int rowStride = transpose ? 1 : this.size;
+        int columnStride = transpose ? this.size : 1;
+
+        for(int row = 0; row < this.size; ++row)
+        {
+            int start = this.rowStarts[this.rows[row]];
+            int index = row * rowStride;
+            for(int column = 0; column < this.size; ++column)
+            {
+                int number = start + this.columns[column];
+                if(number >= this.size) number -= this.size;
+                grid[index] = this.numbers[number];
+                index += columnStride;
+            }
+        }
+        ++this.generated;
+    }
+
+
+    /**
+     * Fill lines with a random order of groups, each holding its own lines in a random order: rows grouped in bands or
+     * columns grouped in stacks.
+     *
+     * @param lines - Pattern line for each line of the grid, overwritten.
+     * @param groups - Scratch array with one entry per group.
+     * @param width - Number of lines in a group.
+     */
+    private void Permute(int[] lines, int[] groups, int width) {
+        for(int i = 0; i < groups.length; ++i) groups[i] = i;
+        Shuffle(groups, this.random);
+
+        for(int group = 0; group < groups.length; ++group)
+        {
+            int first = group * width;
+            for(int i = 0; i < width; ++i) lines[first + i] = groups[group] * width + i;
+
+            for(int i = width - 1; i > 0; --i)
+            {
+                int j = this.random.nextInt(i + 1);
+                int swap = lines[first + i];
+                lines[first + i] = lines[first + j];
+                lines[first + j] = swap;
+            }
+        }
+    }
+
+
+    private static void Shuffle(int[] array, SplittableRandom random) {
+        for(int i = array.length - 1; i > 0; --i)
+        {
+            int j = random.nextInt(i + 1);
+            int swap = array[i];
+            array[i] = array[j];
+            array[j] = swap;
+        }
+    }
+
+    private static void Shuffle(byte[] array, SplittableRandom random) {
+        for(int i = array.length - 1; i > 0; --i)
+        {
+            int j = random.nextInt(i + 1);
+            byte swap = array[i];
+            array[i] = array[j];
+            array[j] = swap;
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+import java.util.Arrays;
+
+/**
+ * Checks a full or partial Board for contradictions before it is searched, with one bitmask pass per house. A
+ * validator keeps its work arrays between calls, so one per thread can check any number of Boards without allocating.
+ * After a failed Validate, the getters report what failed and where.
+ */
+public class GridValidator {
+
+    public enum Problem {
+        NONE,
+
+        /**
+         * The same number is filled in twice in one house.
+         */
+        DUPLICATE,
+
+        /**
+         * An unfilled Cell has no number left that its houses allow.
+         */
+        NO_CANDIDATES,
+
+        /**
+         * A number is neither filled in a house nor possible in any of its unfilled Cells.
+         */
+        NO_PLACE
+    }
+
+    private long[] filled = new long[0];
+    private long[] allowed = new long[0];
+    private final long[] scan = new long[2];
+
+    private Problem problem = Problem.NONE;
+    private int house = -1;
+    private int number = -1;
+    private int index = -1;
+
+
+    public Problem getProblem() {
+        return problem;
+    }
+
+    /**
+     * @return Index of the failing house in Board.getHouses(), or -1 if the problem is not tied to a house.
+     */
+    public int getHouse() {
+        return house;
+    }
+
+    /**
+     * @return The failing number, or -1 if the problem is not tied to a number.
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * @return Index of the failing Cell, or -1 if the problem is not tied to a Cell.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+
+    /**
+     * Check that no house repeats a filled number, that every unfilled Cell still has a candidate its houses allow, and
+     * that every house has somewhere to put each of its numbers. Candidates on the Board are respected but not trusted,
+     * so a Board loaded directly with Board.Load is checked against its filled Cells.
+     *
+     * @param board - Board to check, full or partial. It is not changed.
+     *
+     * @return True if no contradiction was found, otherwise false with the problem available from the getters.
+     */
+    public boolean Validate(Board board) {
+        int[][] houses = board.getHouses();
+        int cellCount = board.getCellCount();
+        long full = Candidates.Full(board.getSize());
+
+        if(this.filled.length < houses.length) this.filled = new long[houses.length];
+        if(this.allowed.length < cellCount) this.allowed = new long[cellCount];
+        Report(Problem.NONE, -1, -1, -1);
+
+        // Numbers filled in each house, looking for the first repeat only in a house known to have one
+        for(int h = 0; h < houses.length; ++h)
+        {
+            board.ScanValues(houses[h], this.scan);
+            if(this.scan[1] != 0)
+            {
+                long seen = 0;
+                for(int cell : houses[h])
+                {
+                    if(!board.isFilled(cell)) continue;
+
+                    long bit = Candidates.Bit(board.getValue(cell));
+                    if((seen & bit) != 0) return Report(Problem.DUPLICATE, h, board.getValue(cell), cell);
+                    seen |= bit;
+                }
+            }
+            this.filled[h] = this.scan[0];
+        }
+
+        // Candidates of each unfilled Cell, less everything filled in any of its houses
+        Arrays.fill(this.allowed, 0, cellCount, full);
+        for(int h = 0; h < houses.length; ++h)
+        {
+            for(int cell : houses[h]) this.allowed[cell] &= ~this.filled[h];
+        }
+        for(int cell = 0; cell < cellCount; ++cell)
+        {
+            if(board.isFilled(cell)) continue;
+
+            this.allowed[cell] &= board.getCandidates(cell);
+            if(this.allowed[cell] == 0) return Report(Problem.NO_CANDIDATES, -1, -1, cell);
+        }
+
+        // Every number needs a filled Cell or a candidate in every house
+        for(int h = 0; h < houses.length; ++h)
+        {
+            long placeable = this.filled[h];
+            for(int cell : houses[h]) if(!board.isFilled(cell)) placeable |= this.allowed[cell];
+
+            long missing = full & ~placeable;
+            if(missing != 0) return Report(Problem.NO_PLACE, h, Candidates.First(missing), -1);
+        }
+        return true;
+    }
+
+
+    /**
+     * Describe the last problem found, e.g. "Number 5 repeated in row 3". Numbers, rows, columns, and blocks are
+     * counted from 1 as a player would.
+     *
+     * @param board - Board that was last validated.
+     *
+     * @return Description of the problem, or "Valid" if there was none.
+     */
+    public String Describe(Board board) {
+        return switch(this.problem)
+        {
+            case NONE -> "Valid";
+            case DUPLICATE -> "Number " + (this.number + 1) + " repeated in " + HouseName(board, this.house);
+            case NO_CANDIDATES -> "No number possible at row " + (board.getRow(this.index) + 1)
+                    + " column " + (board.getColumn(this.index) + 1);
+            case NO_PLACE -> "Number " + (this.number + 1) + " has no place in " + HouseName(board, this.house);
+        };
+    }
+
+
+    /**
+     * @param board - Board the house belongs to.
+     * @param house - Index of the house in Board.getHouses().
+     *
+     * @return Name of the house from the board's layout, e.g. "column 4", "region 2" in a jigsaw layout, or "diagonal
+     * from top left".
+     */
+    public static String HouseName(Board board, int house) {
+        int size = board.getSize();
+        if(house < size) return "row " + (house + 1);
+        if(house < 2 * size) return "column " + (house - size + 1);
+        if(house < 3 * size) return (board.getLayout().isRegular() ? "block " : "region ") + (house - 2 * size + 1);
+        return house == 3 * size ? "diagonal from top left" : "diagonal from top right";
+    }
+
+
+    private boolean Report(Problem problem, int house, int number, int index) {
+        this.problem = problem;
+        this.house = house;
+        this.number = number;
+        this.index = index;
+        return problem == Problem.NONE;
+    }
+
+}
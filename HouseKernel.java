@@ -0,0 +1,154 @@
+/**
+ * The regular inner loops over a Board's arrays: scanning Cells for naked singles, reducing a house's candidates or
+ * values to the numbers seen once and more than once, and finding the peers that still hold a number. This class is
+ * the scalar version; VectorHouseKernel does the same with the incubating Vector API, several Cells per instruction.
+ * <p>
+ * VectorHouseKernel lives in the separate vector source folder, so the main sources build with a plain
+ * {@code javac -d out *.java} and need no incubator module. To add it, compile it on its own against the main classes
+ * and put both on the class path, starting the JVM with the module:
+ * <pre>
+ * javac --add-modules jdk.incubator.vector -cp out -d out-vector vector/VectorHouseKernel.java
+ * java --add-modules jdk.incubator.vector -cp out:out-vector Main
+ * </pre>
+ * Without the compiled class or without the module the vector kernel is never loaded, so everything falls back to the
+ * scalar loops. It can also be turned off with {@code -Dsudoku.simd=false} to compare the two.
+ */
+public class HouseKernel {
+
+    private static final HouseKernel SCALAR = new HouseKernel();
+    private static final HouseKernel VECTOR = LoadVector();
+    private static final HouseKernel DEFAULT = VECTOR != null && !"false".equals(System.getProperty("sudoku.simd")) ? VECTOR : SCALAR;
+
+
+    /**
+     * @return The kernel used by every Board: the vector one if it is available and not turned off, else the scalar one.
+     */
+    public static HouseKernel Default() {
+        return DEFAULT;
+    }
+
+    public static HouseKernel Scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * @return The vector kernel, or null if the jdk.incubator.vector module or the compiled VectorHouseKernel is not
+     * available.
+     */
+    public static HouseKernel Vector() {
+        return VECTOR;
+    }
+
+
+    private static HouseKernel LoadVector() {
+        if(ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return null;
+
+        try
+        {
+            return (HouseKernel) Class.forName("VectorHouseKernel").getDeclaredConstructor().newInstance();
+        }
+        catch(ReflectiveOperationException | LinkageError e)
+        {
+            return null;
+        }
+    }
+
+
+    public String getName() {
+        return "scalar";
+    }
+
+    /**
+     * @return Whether the kernel processes several Cells per instruction.
+     */
+    public boolean isVector() {
+        return false;
+    }
+
+
+    /**
+     * Find the next unfilled Cell left with at most one candidate, either a naked single or a contradiction.
+     *
+     * @param candidates - Candidate mask of each Cell.
+     * @param values - Value of each Cell, Board.EMPTY if unfilled.
+     * @param from - Index to start at.
+     *
+     * @return Index of the Cell, or -1 if there is none from the start index on.
+     */
+    public int NextSingle(long[] candidates, byte[] values, int from) {
+        for(int index = from; index < candidates.length; ++index)
+        {
+            long mask = candidates[index];
+            if((mask & (mask - 1)) == 0 && values[index] == Board.EMPTY) return index;
+        }
+        return -1;
+    }
+
+
+    /**
+     * Reduce the candidates of a house to the numbers held by at least one Cell and by at least two.
+     *
+     * @param candidates - Candidate mask of each Cell.
+     * @param house - Indices of the house's Cells, in ascending order as RegionLayout gives them.
+     * @param result - Receives the numbers held once or more at 0 and twice or more at 1.
+     */
+    public void ScanCandidates(long[] candidates, int[] house, long[] result) {
+        long once = 0;
+        long twice = 0;
+        for(int index : house)
+        {
+            long mask = candidates[index];
+            twice |= once & mask;
+            once |= mask;
+        }
+        result[0] = once;
+        result[1] = twice;
+    }
+
+
+    /**
+     * Reduce the values of a house to the numbers filled at least once and at least twice, the latter being repeats.
+     *
+     * @param values - Value of each Cell, Board.EMPTY if unfilled.
+     * @param house - Indices of the house's Cells, in ascending order as RegionLayout gives them.
+     * @param result - Receives the numbers filled once or more at 0 and twice or more at 1.
+     */
+    public void ScanValues(byte[] values, int[] house, long[] result) {
+        long once = 0;
+        long twice = 0;
+        for(int index : house)
+        {
+            int value = values[index];
+            if(value == Board.EMPTY) continue;
+
+            long bit = Candidates.Bit(value);
+            twice |= once & bit;
+            once |= bit;
+        }
+        result[0] = once;
+        result[1] = twice;
+    }
+
+
+    /**
+     * Find which of up to 64 consecutive entries of an index list are Cells still holding a number.
+     *
+     * @param candidates - Candidate mask of each Cell.
+     * @param indices - Cell indices, e.g. the peers of a Cell.
+     * @param from - First entry to check.
+     * @param bit - Bit of the number.
+     *
+     * @return Mask with bit i set if the Cell at entry from + i holds the number.
+     */
+    public long Holding(long[] candidates, int[] indices, int from, long bit) {
+        int end = Math.min(indices.length, from + Long.SIZE);
+
+        long holding = 0;
+        for(int i = from; i < end; ++i)
+        {
+            if((candidates[indices[i]] & bit) != 0) holding |= 1L << (i - from);
+        }
+        return holding;
+    }
+
+}
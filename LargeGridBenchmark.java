@@ -0,0 +1,154 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Regression benchmark for large grids. A fixed, seeded set of puzzles for each of 16x16, 25x25, 36x36 and 64x64 is
+ * solved through Grid.LoadGrid and Grid.SolveGrid, recording the time to solve and the peak heap used per puzzle.
+ * <p>
+ * Usage: {@code java LargeGridBenchmark [--puzzles n] [--save file] [--compare file]}. --save writes the results so a
+ * later run can --compare against them, which fails if any shape got more than 50% slower or used 25% more heap.
+ */
+public class LargeGridBenchmark {
+
+    private static final int[][] SHAPES = {{4, 4}, {5, 5}, {6, 6}, {8, 8}};
+
+    // Fraction of Cells cleared for each shape, as high as each size solves reliably within seconds. Somewhat higher
+    // fractions reach the band where random puzzles need orders of magnitude more search.
+    private static final double[] REMOVED = {0.65, 0.45, 0.4, 0.35};
+
+    private static final double TIME_TOLERANCE = 1.5;
+    private static final double HEAP_TOLERANCE = 1.25;
+
+
+    public static void main(String[] args) throws IOException {
+        int puzzles = 5;
+        Path save = null;
+        Path compare = null;
+
+        for(int i = 0; i < args.length; ++i)
+        {
+            switch(args[i])
+            {
+                case "--puzzles" -> puzzles = Integer.parseInt(args[++i]);
+                case "--save" -> save = Path.of(args[++i]);
+                case "--compare" -> compare = Path.of(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown argument " + args[i]);
+            }
+        }
+
+        Map<String, double[]> results = new HashMap<>();
+        StringBuilder saved = new StringBuilder();
+        for(int s = 0; s < SHAPES.length; ++s)
+        {
+            int[] shape = SHAPES[s];
+            int size = shape[0] * shape[1];
+            String name = size + "x" + size;
+
+            List<Integer[]> set = BenchmarkPuzzles.Dig(shape[0], shape[1], REMOVED[s], puzzles, new Random(size));
+            double[] result = Run(shape[0], shape[1], set);
+            results.put(name, result);
+
+            System.out.printf(Locale.ROOT, "%-6s %3d puzzles  median %10.3f ms  max %10.3f ms  peak heap %8.1f MB%n",
+                    name, set.size(), result[0], result[1], result[2]);
+            saved.append(String.format(Locale.ROOT, "%s %.3f %.3f %.1f%n", name, result[0], result[1], result[2]));
+        }
+
+        if(save != null) Files.writeString(save, saved);
+        if(compare != null && !Compare(compare, results)) System.exit(1);
+    }
+
+
+    /**
+     * Solve each puzzle once to warm up, then again measured.
+     *
+     * @return Median and maximum milliseconds to solve, and the highest peak heap in megabytes, across the puzzles.
+     */
+    private static double[] Run(int blockRows, int blockColumns, List<Integer[]> puzzles) {
+        for(Integer[] puzzle : puzzles) Solve(blockRows, blockColumns, puzzle);
+
+        double[] millis = new double[puzzles.size()];
+        double peakHeap = 0;
+        for(int i = 0; i < puzzles.size(); ++i)
+        {
+            System.gc();
+            ResetPeakHeap();
+
+            long start = System.nanoTime();
+            Solve(blockRows, blockColumns, puzzles.get(i));
+            millis[i] = (System.nanoTime() - start) / 1e6;
+
+            peakHeap = Math.max(peakHeap, PeakHeap() / 1e6);
+        }
+
+        Arrays.sort(millis);
+        return new double[] {millis[millis.length / 2], millis[millis.length - 1], peakHeap};
+    }
+
+
+    // Cells are tried in index order rather than CreateUnfilledIndexsList's shuffle, so every run does the same search
+    private static void Solve(int blockRows, int blockColumns, Integer[] puzzle) {
+        Grid grid = BenchmarkPuzzles.Load(blockRows, blockColumns, puzzle);
+        LinkedList<Integer> unfilledIndexs = grid.CreateUnfilledIndexsList();
+        Collections.sort(unfilledIndexs);
+
+        if(grid.SolveGrid(unfilledIndexs, 1) < 1 || !grid.ValidateGrid())
+            throw new IllegalStateException("Benchmark puzzle was not solved");
+    }
+
+
+    private static void ResetPeakHeap() {
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            if(pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+    }
+
+    private static long PeakHeap() {
+        long peak = 0;
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+        {
+            if(pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        return peak;
+    }
+
+
+    /**
+     * Compare results with those saved by an earlier run, printing the change for each shape.
+     *
+     * @param baseline - File written by --save.
+     * @param results - Median, maximum and peak heap of this run for each shape.
+     *
+     * @return False if any shape regressed beyond the tolerances, true otherwise.
+     */
+    private static boolean Compare(Path baseline, Map<String, double[]> results) throws IOException {
+        boolean passed = true;
+        for(String line : Files.readAllLines(baseline))
+        {
+            String[] fields = line.trim().split("\\s+");
+            double[] result = results.get(fields[0]);
+            if(result == null) continue;
+
+            double time = result[0] / Double.parseDouble(fields[1]);
+            double heap = result[2] / Double.parseDouble(fields[3]);
+            boolean regressed = time > TIME_TOLERANCE || heap > HEAP_TOLERANCE;
+            passed &= !regressed;
+
+            System.out.printf(Locale.ROOT, "%-6s time x%.2f  heap x%.2f%s%n", fields[0], time, heap, regressed ? "  REGRESSED" : "");
+        }
+        return passed;
+    }
+
+}
@@ -1,7 +1,44 @@
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.time.Duration;
+
 public class Main {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+
+        if(args.length > 0 && args[0].equals("--batch"))
+        {
+            RunBatch(args);
+            return;
+        }
+
+        if(args.length > 0 && args[0].equals("--generate"))
+        {
+            RunGenerate(args);
+            return;
+        }
+
+        if(args.length > 0 && args[0].equals("--serve"))
+        {
+            RunServe(args);
+            return;
+        }
+
+        if(args.length > 0 && args[0].equals("--search"))
+        {
+            RunSearch(args);
+            return;
+        }
 
         int blockSize = 3;
         Grid grid = new Grid(2,2);
@@ -27,8 +64,204 @@ public class Main {
         */
 
         Solver solver = new Solver(grid);
-        solver.solve();
+        solver.solve().ifPresentOrElse(
+                solution -> System.out.println("SOLUTION FOUND\n" + solution.PrintBlockGrid() + "\n"),
+                () -> System.out.println("NO SOLUTION")
+        );
+        System.out.println("Tasks forked: " + solver.getTasksForked() + ", run inline: " + solver.getTasksInlined());
+        solver.getMetrics().ifPresent(System.out::println);
+
+
+    }
+
+
+    /**
+     * Batch mode: {@code --batch [file|-] [--output file] [--threads n] [--engine backtracking|dancing_links|conflict_learning]}.
+     * Reads one puzzle per line from the file, memory-mapped, or stdin, writes one solution per line to the output file or
+     * stdout, and reports the throughput on stderr.
+     */
+    private static void RunBatch(String[] args) throws IOException {
+        String inputPath = "-";
+        String outputPath = "-";
+        int threads = Runtime.getRuntime().availableProcessors();
+        SolverEngine engine = SolverEngine.BACKTRACKING;
+
+        for(int i = 1; i < args.length; ++i)
+        {
+            switch(args[i])
+            {
+                case "--output" -> outputPath = args[++i];
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--engine" -> engine = SolverEngine.valueOf(args[++i].toUpperCase());
+                default -> inputPath = args[i];
+            }
+        }
+
+        BatchSolver batchSolver = new BatchSolver(new BoardSolver(Propagator.Default(), engine), threads, 1024);
+
+        // Files are memory-mapped, stdin is read line by line
+        if(!inputPath.equals("-"))
+        {
+            try(OutputStream output = new BufferedOutputStream(outputPath.equals("-") ? System.out : new FileOutputStream(outputPath), 1 << 16))
+            {
+                batchSolver.RunMapped(Path.of(inputPath), output, 1 << 20);
+            }
+
+            System.err.println(batchSolver.Report());
+            if(SearchMetrics.ENABLED) System.err.println(SearchMetrics.Total());
+            return;
+        }
+
+        try(BufferedReader input = new BufferedReader(new InputStreamReader(System.in), 1 << 16);
+            Writer output = new BufferedWriter(outputPath.equals("-") ? new OutputStreamWriter(System.out) : new FileWriter(outputPath), 1 << 16))
+        {
+            batchSolver.Run(input, output);
+        }
+
+        System.err.println(batchSolver.Report());
+        if(SearchMetrics.ENABLED) System.err.println(SearchMetrics.Total());
+    }
+
+
+    /**
+     * Generate mode: {@code --generate count [--shape RxC] [--seed n] [--threads n] [--output file]}. Writes unique
+     * puzzles one per line to the output file or stdout, and reports the throughput on stderr.
+     */
+    private static void RunGenerate(String[] args) throws IOException {
+        int count = Integer.parseInt(args[1]);
+        int blockRows = 3;
+        int blockColumns = 3;
+        long seed = System.nanoTime();
+        int threads = Runtime.getRuntime().availableProcessors();
+        String outputPath = "-";
+
+        for(int i = 2; i < args.length; ++i)
+        {
+            switch(args[i])
+            {
+                case "--shape" -> {
+                    String[] shape = args[++i].split("x");
+                    blockRows = Integer.parseInt(shape[0]);
+                    blockColumns = Integer.parseInt(shape[1]);
+                }
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--output" -> outputPath = args[++i];
+                default -> throw new IllegalArgumentException("Unknown argument " + args[i]);
+            }
+        }
+
+        PuzzleGenerator generator = new PuzzleGenerator(blockRows, blockColumns, seed);
+        generator.setThreads(threads);
+
+        try(Writer output = new BufferedWriter(outputPath.equals("-") ? new OutputStreamWriter(System.out) : new FileWriter(outputPath), 1 << 16))
+        {
+            generator.GenerateBulk(count, output);
+        }
+
+        System.err.println(generator.Report());
+    }
+
+
+    /**
+     * Serve mode: {@code --serve [--port n] [--threads n] [--queue n] [--batch n] [--engine backtracking|dancing_links|conflict_learning]}.
+     * Solves puzzles posted to http://localhost:port/solve until stopped, and prints the Report on stderr every 10 seconds
+     * while there is traffic.
+     */
+    private static void RunServe(String[] args) throws IOException {
+        int port = 8080;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int queue = 4096;
+        int batch = 64;
+        SolverEngine engine = SolverEngine.BACKTRACKING;
+
+        for(int i = 1; i < args.length; ++i)
+        {
+            switch(args[i])
+            {
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--queue" -> queue = Integer.parseInt(args[++i]);
+                case "--batch" -> batch = Integer.parseInt(args[++i]);
+                case "--engine" -> engine = SolverEngine.valueOf(args[++i].toUpperCase());
+                default -> throw new IllegalArgumentException("Unknown argument " + args[i]);
+            }
+        }
+
+        SolveServer server = new SolveServer(new BoardSolver(Propagator.Default(), engine), threads, queue, batch);
+        server.Start(port);
+        System.err.println("Serving on http://localhost:" + server.getPort() + "/solve");
+
+        long reported = -1;
+        while(true)
+        {
+            try
+            {
+                Thread.sleep(10_000);
+            }
+            catch(InterruptedException e)
+            {
+                server.Stop(1);
+                return;
+            }
+
+            if(server.getRequests() != reported)
+            {
+                reported = server.getRequests();
+                System.err.println(server.Report());
+            }
+        }
+    }
+
+
+    /**
+     * Search mode: {@code --search (puzzle|--resume file) [--max n] [--threads n] [--checkpoint file] [--every seconds]}.
+     * Counts the solutions of a puzzle line up to the maximum, all of them by default, checkpointing to the file so an
+     * interrupted run can be continued with --resume, with any number of threads.
+     */
+    private static void RunSearch(String[] args) throws IOException {
+        String puzzle = null;
+        Path resume = null;
+        Path checkpoint = null;
+        long maximum = Long.MAX_VALUE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long every = 60;
+
+        for(int i = 1; i < args.length; ++i)
+        {
+            switch(args[i])
+            {
+                case "--resume" -> resume = Path.of(args[++i]);
+                case "--max" -> maximum = Long.parseLong(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--checkpoint" -> checkpoint = Path.of(args[++i]);
+                case "--every" -> every = Long.parseLong(args[++i]);
+                default -> puzzle = args[i];
+            }
+        }
+
+        ResumableSearch search = new ResumableSearch(Propagator.Default(), threads);
+        search.setCheckpoint(checkpoint != null ? checkpoint : resume, Duration.ofSeconds(every));
+
+        long start = System.nanoTime();
+        long solutions;
+        if(resume != null)
+        {
+            solutions = search.Resume(resume);
+        }
+        else
+        {
+            int size = PuzzleFormat.SizeForLength(puzzle == null ? 0 : puzzle.length());
+            if(size < 0) throw new IllegalArgumentException("Not a puzzle line: " + puzzle);
 
+            int blockRows = PuzzleFormat.BlockRowsForSize(size);
+            Board board = new Board(blockRows, size / blockRows);
+            if(!PuzzleFormat.Decode(puzzle, board)) board = null;
+            solutions = board == null ? 0 : search.Start(board, maximum);
+        }
 
+        System.out.println(solutions);
+        if(search.getSolution() != null) System.out.println(PuzzleFormat.Encode(search.getSolution()));
+        System.err.printf("%s in %.3f s%n", search.Report(), (System.nanoTime() - start) / 1e9);
     }
 }
@@ -0,0 +1,86 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Splits a puzzle file into line-aligned chunks that are memory-mapped rather than read, so puzzles can be decoded
+ * straight from the mapped bytes by worker threads. Each chunk ends just after a newline, or at the end of the file.
+ */
+public class MappedPuzzleReader implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final int chunkBytes;
+    private long position;
+
+
+    /**
+     * @param path - Puzzle file to map.
+     * @param chunkBytes - Target size of each chunk, grown for a single line longer than this.
+     *
+     * @throws IOException If the file cannot be opened.
+     */
+    public MappedPuzzleReader(Path path, int chunkBytes) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.fileSize = this.channel.size();
+        this.chunkBytes = chunkBytes;
+        this.position = 0;
+    }
+
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+
+    /**
+     * Map the next chunk of the file.
+     *
+     * @return Buffer holding whole lines, or null once the end of the file is reached.
+     *
+     * @throws IOException If mapping fails.
+     */
+    public MappedByteBuffer NextChunk() throws IOException {
+        if(this.position >= this.fileSize) return null;
+
+        long length = this.chunkBytes;
+        while(true)
+        {
+            long mapped = Math.min(length, Math.min(this.fileSize - this.position, Integer.MAX_VALUE));
+            MappedByteBuffer buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, this.position, mapped);
+
+            // The last chunk of the file needs no newline, others end after the last newline in the mapping
+            int end = (int) mapped;
+            if(this.position + mapped < this.fileSize)
+            {
+                end = LastLineEnd(buffer, (int) mapped);
+                if(end < 0)
+                {
+                    if(mapped == Integer.MAX_VALUE) throw new IOException("Line longer than " + Integer.MAX_VALUE + " bytes");
+
+                    length *= 2;
+                    continue;
+                }
+            }
+
+            this.position += end;
+            buffer.limit(end);
+            return buffer;
+        }
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+
+    private static int LastLineEnd(MappedByteBuffer buffer, int length) {
+        for(int i = length - 1; i >= 0; --i) if(buffer.get(i) == '\n') return i + 1;
+        return -1;
+    }
+
+}
@@ -0,0 +1,130 @@
+/**
+ * Short nogoods learned by ConflictSearches of the same puzzle, passed between them so each worker skips dead ends
+ * another has already proved. Nogoods only follow from the puzzle itself, never from a worker's choices, so any of them
+ * holds for every worker searching the same puzzle, whatever its order or propagation. A pool must not be shared
+ * between different puzzles.
+ * <p>
+ * The pool keeps the most recently published nogoods in a ring of fixed capacity, so its memory is bounded however long
+ * the workers run, and a worker that falls too far behind misses the oldest ones rather than holding up the others.
+ * Workers publish and collect in batches at their restarts, so the lock is taken rarely.
+ */
+public class NogoodPool {
+
+    public static final int DEFAULT_MAXIMUM_LENGTH = 8;
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final int maximumLength;
+    private final int[][] nogoods;
+    private final int[] sources;
+    private long published;
+    private int members;
+
+
+    public NogoodPool() {
+        this(DEFAULT_MAXIMUM_LENGTH, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param maximumLength - Most facts in a nogood worth sharing. Longer ones rarely prune anything for another worker.
+     * @param capacity - Number of nogoods kept for collecting.
+     */
+    public NogoodPool(int maximumLength, int capacity) {
+        if(maximumLength < 1) throw new IllegalArgumentException("Maximum length " + maximumLength + " below 1");
+        if(capacity < 1) throw new IllegalArgumentException("Capacity " + capacity + " below 1");
+
+        this.maximumLength = maximumLength;
+        this.nogoods = new int[capacity][];
+        this.sources = new int[capacity];
+    }
+
+
+    public int getMaximumLength() {
+        return maximumLength;
+    }
+
+    public int getCapacity() {
+        return nogoods.length;
+    }
+
+    /**
+     * @return Number of nogoods published since the pool was created.
+     */
+    public synchronized long getPublished() {
+        return published;
+    }
+
+
+    /**
+     * @return A handle for a new worker, through which it publishes and collects, never collecting its own nogoods.
+     */
+    public synchronized Member Join() {
+        return new Member(this.members++);
+    }
+
+
+    private synchronized void Publish(int source, int[][] batch, int count) {
+        for(int i = 0; i < count; ++i)
+        {
+            int slot = (int) (this.published % this.nogoods.length);
+            this.nogoods[slot] = batch[i];
+            this.sources[slot] = source;
+            ++this.published;
+        }
+    }
+
+
+    private synchronized int Collect(Member reader, int[][] into) {
+        long position = Math.max(reader.cursor, this.published - this.nogoods.length);
+        int count = 0;
+        for(; position < this.published && count < into.length; ++position)
+        {
+            int slot = (int) (position % this.nogoods.length);
+            if(this.sources[slot] != reader.id) into[count++] = this.nogoods[slot];
+        }
+        reader.cursor = position;
+        return count;
+    }
+
+
+    /**
+     * One worker's place in the pool: its identifier and how far it has collected.
+     */
+    public final class Member {
+
+        private final int id;
+        private long cursor;
+
+        private Member(int id) {
+            this.id = id;
+        }
+
+
+        public NogoodPool getPool() {
+            return NogoodPool.this;
+        }
+
+
+        /**
+         * Publish nogoods, each as ConflictSearch facts. The arrays are handed to other workers as they are, so they
+         * must not be changed afterwards.
+         *
+         * @param batch - Nogoods to publish, each at most getMaximumLength() facts.
+         * @param count - Number of nogoods at the start of the batch to publish.
+         */
+        public void Publish(int[][] batch, int count) {
+            NogoodPool.this.Publish(this.id, batch, count);
+        }
+
+        /**
+         * Collect the nogoods published by other workers since this worker last collected, as many as fit.
+         *
+         * @param into - Receives the nogoods, which must not be changed.
+         *
+         * @return Number of nogoods collected, the rest are collected next time unless they are overwritten first.
+         */
+        public int Collect(int[][] into) {
+            return NogoodPool.this.Collect(this, into);
+        }
+    }
+
+}
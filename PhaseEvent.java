@@ -0,0 +1,47 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event covering one phase of a solve, e.g. building the Board, the initial propagation, the search,
+ * or a Grid.CopyGrid. Phases of a solve nest inside its SolveEvent on the same thread.
+ */
+@Name("sudoku.Phase")
+@Label("Solve Phase")
+@Category("Sudoku")
+@Description("One phase of a solve")
+public class PhaseEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Size")
+    int size;
+
+
+    /**
+     * Start timing a phase. When the event is not being recorded this does nothing, and the event is not committed.
+     *
+     * @param phase - Name of the phase.
+     * @param size - Size of the grid.
+     *
+     * @return The started event, to End once the phase is over.
+     */
+    public static PhaseEvent Begin(String phase, int size) {
+        PhaseEvent event = new PhaseEvent();
+        if(event.isEnabled())
+        {
+            event.phase = phase;
+            event.size = size;
+            event.begin();
+        }
+        return event;
+    }
+
+    public void End() {
+        commit();
+    }
+
+}
@@ -0,0 +1,178 @@
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Races several strategies on the same puzzle, each with its own copy of the Board, on a dedicated pool of platform
+ * threads. The first strategy to finish decides the answer and the others give up at their next stop check, which cuts
+ * the tail latency of puzzles that are pathological for one strategy but not another.
+ * <p>
+ * Virtual threads are not used as the searches never block, so a carrier thread would run one strategy to the end
+ * before starting the next, while platform threads are time-sliced by the OS and race even on fewer cores than
+ * strategies. At most parallelism strategies search at once, the rest queue. The CPU budget caps the total search time
+ * across them: the race is stopped once the elapsed time times the number of cores in use reaches the budget.
+ */
+public class Portfolio {
+
+    private final List<PortfolioStrategy> strategies;
+    private int parallelism;
+    private Duration cpuBudget;
+
+
+    /**
+     * @param strategies - Strategies to race, in the order they are started.
+     */
+    public Portfolio(List<PortfolioStrategy> strategies) {
+        if(strategies.isEmpty()) throw new IllegalArgumentException("Portfolio needs at least one strategy");
+        this.strategies = List.copyOf(strategies);
+        this.parallelism = this.strategies.size();
+    }
+
+    /**
+     * @return A portfolio of PortfolioStrategy.Default with one strategy per processor, and at least 4.
+     */
+    public static Portfolio Default() {
+        return new Portfolio(PortfolioStrategy.Default(Math.max(4, Runtime.getRuntime().availableProcessors())));
+    }
+
+
+    public List<PortfolioStrategy> getStrategies() {
+        return strategies;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @param parallelism - Number of strategies searching at once, at least 1. All of them by default.
+     */
+    public void setParallelism(int parallelism) {
+        if(parallelism < 1) throw new IllegalArgumentException("Parallelism " + parallelism + " below 1");
+        this.parallelism = parallelism;
+    }
+
+    public Duration getCpuBudget() {
+        return cpuBudget;
+    }
+
+    /**
+     * @param cpuBudget - Total search time allowed across all strategies, or null for no limit.
+     */
+    public void setCpuBudget(Duration cpuBudget) {
+        this.cpuBudget = cpuBudget;
+    }
+
+
+    /**
+     * Race the strategies on a board until one of them finishes or the CPU budget runs out.
+     *
+     * @param board - Board to solve. It is not changed, each strategy searches a copy.
+     * @param givenOrder - Indices of unfilled Cells, used by strategies with the GIVEN order.
+     *
+     * @return The outcome of the winning strategy, or one without a winner if the budget ran out first.
+     */
+    public Outcome Solve(Board board, int[] givenOrder) {
+        int cores = Math.min(this.parallelism, Runtime.getRuntime().availableProcessors());
+        long start = System.nanoTime();
+        long budget = this.cpuBudget == null ? Long.MAX_VALUE : this.cpuBudget.toNanos() / cores;
+        AtomicBoolean finished = new AtomicBoolean();
+        BooleanSupplier stop = () -> finished.get() || System.nanoTime() - start > budget;
+        NogoodPool nogoods = this.strategies.stream().anyMatch(strategy -> strategy.getEngine() == SolverEngine.CONFLICT_LEARNING)
+                ? new NogoodPool() : null;
+
+        try(ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.parallelism, this.strategies.size())))
+        {
+            ExecutorCompletionService<Outcome> completion = new ExecutorCompletionService<>(executor);
+            for(PortfolioStrategy strategy : this.strategies)
+            {
+                completion.submit(() -> Race(strategy, board, givenOrder, nogoods, stop));
+            }
+
+            // Closing the executor waits for the losers, which stop within 1024 nodes of the flag being set
+            try
+            {
+                for(int i = 0; i < this.strategies.size(); ++i)
+                {
+                    Outcome outcome = completion.take().get();
+                    if(outcome.hasWinner()) return outcome;
+                }
+                return new Outcome(null, BoardSolver.STOPPED, null);
+            }
+            catch(InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return new Outcome(null, BoardSolver.STOPPED, null);
+            }
+            catch(ExecutionException e)
+            {
+                throw new IllegalStateException("Portfolio strategy failed", e.getCause());
+            }
+            finally
+            {
+                finished.set(true);
+            }
+        }
+    }
+
+
+    // Strategies still queued when the race is decided return without searching. Conflict learning strategies share
+    // the nogoods of the race through the pool, the others ignore it
+    private static Outcome Race(PortfolioStrategy strategy, Board board, int[] givenOrder, NogoodPool nogoods, BooleanSupplier stop) {
+        if(stop.getAsBoolean()) return new Outcome(strategy, BoardSolver.STOPPED, null);
+
+        Board copy = new Board(board);
+        BoardSolver solver = new BoardSolver(strategy.getPropagator(), strategy.getEngine(), nogoods);
+        int solutions = solver.Solve(copy, strategy.CreateOrder(copy, givenOrder), 1, stop);
+        return new Outcome(strategy, solutions, copy);
+    }
+
+
+    /**
+     * Result of a race: the strategy that finished first and the board it solved, or no winner if every strategy
+     * stopped before finishing.
+     */
+    public static class Outcome {
+
+        private final PortfolioStrategy winner;
+        private final int solutions;
+        private final Board board;
+
+        private Outcome(PortfolioStrategy strategy, int solutions, Board board) {
+            this.winner = solutions == BoardSolver.STOPPED ? null : strategy;
+            this.solutions = solutions;
+            this.board = board;
+        }
+
+        public boolean hasWinner() {
+            return winner != null;
+        }
+
+        /**
+         * @return The strategy that finished first, or null if none did.
+         */
+        public PortfolioStrategy getWinner() {
+            return winner;
+        }
+
+        /**
+         * @return Whether the winner found a solution, false if it proved there is none or there was no winner.
+         */
+        public boolean isSolved() {
+            return hasWinner() && solutions > 0;
+        }
+
+        /**
+         * @return The board solved by the winner, only meaningful if isSolved.
+         */
+        public Board getBoard() {
+            return board;
+        }
+    }
+
+}
@@ -0,0 +1,169 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * One configuration raced by a Portfolio: the search engine, the propagation pipeline, and the order that breaks ties
+ * between Cells with equally few candidates.
+ */
+public class PortfolioStrategy {
+
+    public enum Order {
+
+        /**
+         * The order the caller gives, e.g. the shuffle from Grid.CreateUnfilledIndexsList.
+         */
+        GIVEN,
+
+        /**
+         * Row-major index order.
+         */
+        ROW_MAJOR,
+
+        /**
+         * Cells with the most unfilled peers first, so ties go to the Cell that constrains the most others.
+         */
+        DEGREE,
+
+        /**
+         * A random order from the strategy's seed.
+         */
+        SHUFFLED
+    }
+
+    private final String name;
+    private final SolverEngine engine;
+    private final Propagator propagator;
+    private final Order order;
+    private final long seed;
+
+
+    /**
+     * @param name - Name reported when the strategy wins.
+     * @param engine - Search engine.
+     * @param propagator - Propagation pipeline run after every assignment.
+     * @param order - Tie-break order for selecting the next Cell.
+     * @param seed - Seed of the SHUFFLED order, ignored otherwise.
+     */
+    public PortfolioStrategy(String name, SolverEngine engine, Propagator propagator, Order order, long seed) {
+        this.name = name;
+        this.engine = engine;
+        this.propagator = propagator;
+        this.order = order;
+        this.seed = seed;
+    }
+
+
+    /**
+     * Create a mix of strategies that tend to fail on different puzzles: MRV with the given, row-major and degree
+     * tie-breaks under full propagation, Dancing Links, singles only, and shuffled orders for the rest.
+     *
+     * @param count - Number of strategies, at least 1.
+     *
+     * @return The strategies, the given order first.
+     */
+    public static List<PortfolioStrategy> Default(int count) {
+        Propagator full = Propagator.Default();
+        Propagator singles = Propagator.Default().Without("LockedCandidates").Without("NakedPairs").Without("HiddenPairs");
+
+        List<PortfolioStrategy> strategies = new ArrayList<>(List.of(
+                new PortfolioStrategy("given", SolverEngine.BACKTRACKING, full, Order.GIVEN, 0),
+                new PortfolioStrategy("degree", SolverEngine.BACKTRACKING, full, Order.DEGREE, 0),
+                new PortfolioStrategy("dancing links", SolverEngine.DANCING_LINKS, Propagator.None(), Order.ROW_MAJOR, 0),
+                new PortfolioStrategy("singles", SolverEngine.BACKTRACKING, singles, Order.ROW_MAJOR, 0)
+        ));
+        for(int i = strategies.size(); i < count; ++i)
+        {
+            strategies.add(new PortfolioStrategy("shuffled " + i, SolverEngine.BACKTRACKING, full, Order.SHUFFLED, i));
+        }
+        return strategies.subList(0, Math.max(1, count));
+    }
+
+    /**
+     * Create conflict learning strategies, each in its own shuffled order, so the workers of a race take different
+     * paths while sharing their short nogoods.
+     *
+     * @param propagator - Propagation pipeline run once before each search.
+     * @param count - Number of strategies, at least 1.
+     *
+     * @return The strategies.
+     */
+    public static List<PortfolioStrategy> ConflictLearning(Propagator propagator, int count) {
+        List<PortfolioStrategy> strategies = new ArrayList<>();
+        for(int i = 0; i < Math.max(1, count); ++i)
+        {
+            strategies.add(new PortfolioStrategy("conflict learning " + i, SolverEngine.CONFLICT_LEARNING, propagator, Order.SHUFFLED, i));
+        }
+        return strategies;
+    }
+
+
+    public String getName() {
+        return name;
+    }
+
+    public SolverEngine getEngine() {
+        return engine;
+    }
+
+    public Propagator getPropagator() {
+        return propagator;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+
+    /**
+     * Arrange the unfilled Cells in the strategy's tie-break order.
+     *
+     * @param board - Board about to be searched.
+     * @param givenOrder - Indices of the unfilled Cells in the caller's order.
+     *
+     * @return A new array of the same indices.
+     */
+    public int[] CreateOrder(Board board, int[] givenOrder) {
+        int[] newOrder = givenOrder.clone();
+        switch(this.order)
+        {
+            case GIVEN -> { }
+            case ROW_MAJOR -> Arrays.sort(newOrder);
+            case DEGREE -> {
+                int[] degrees = new int[board.getCellCount()];
+                for(int index : newOrder)
+                {
+                    for(int peer : board.getPeers(index)) if(!board.isFilled(peer)) ++degrees[index];
+                }
+                newOrder = Arrays.stream(newOrder).boxed()
+                        .sorted(Comparator.comparingInt((Integer index) -> -degrees[index]).thenComparingInt(index -> index))
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+            }
+            case SHUFFLED -> {
+                SplittableRandom random = new SplittableRandom(this.seed);
+                for(int i = newOrder.length - 1; i > 0; --i)
+                {
+                    int j = random.nextInt(i + 1);
+                    int swap = newOrder[i];
+                    newOrder[i] = newOrder[j];
+                    newOrder[j] = swap;
+                }
+            }
+        }
+        return newOrder;
+    }
+
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+}
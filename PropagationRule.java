@@ -0,0 +1,22 @@
+/**
+ * A deduction applied to a Board before branching. Each change is made through the Board so it is recorded on the trail
+ * and undone on backtrack.
+ */
+public interface PropagationRule {
+
+    /**
+     * @return Name of the rule, used to switch it on or off.
+     */
+    String getName();
+
+
+    /**
+     * Apply one pass of the rule to the board.
+     *
+     * @param board - Board to update.
+     *
+     * @return False if the board was found to have no solution, true otherwise.
+     */
+    boolean Apply(Board board);
+
+}
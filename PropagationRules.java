@@ -0,0 +1,309 @@
+import java.util.List;
+
+/**
+ * The built-in propagation rules.
+ */
+public final class PropagationRules {
+
+    public static final PropagationRule NAKED_SINGLES = new NakedSingles();
+    public static final PropagationRule HIDDEN_SINGLES = new HiddenSingles();
+    public static final PropagationRule LOCKED_CANDIDATES = new LockedCandidates();
+    public static final PropagationRule NAKED_PAIRS = new NakedPairs();
+    public static final PropagationRule HIDDEN_PAIRS = new HiddenPairs();
+
+    private PropagationRules() {
+    }
+
+
+    /**
+     * @return Every built-in rule, cheapest first.
+     */
+    public static List<PropagationRule> All() {
+        return List.of(NAKED_SINGLES, HIDDEN_SINGLES, LOCKED_CANDIDATES, NAKED_PAIRS, HIDDEN_PAIRS);
+    }
+
+
+    /**
+     * Assign every unfilled Cell that has a single candidate left.
+     */
+    private static final class NakedSingles implements PropagationRule {
+
+        @Override
+        public String getName() {
+            return "NakedSingles";
+        }
+
+        @Override
+        public boolean Apply(Board board) {
+            for(int index = board.NextSingle(0); index >= 0; index = board.NextSingle(index + 1))
+            {
+                long candidates = board.getCandidates(index);
+                if(candidates == 0) return false;
+
+                if(!board.Assign(index, Candidates.First(candidates))) return false;
+            }
+            return true;
+        }
+    }
+
+
+    /**
+     * Assign a number to the only Cell of a house that can still hold it.
+     */
+    private static final class HiddenSingles implements PropagationRule {
+
+        @Override
+        public String getName() {
+            return "HiddenSingles";
+        }
+
+        @Override
+        public boolean Apply(Board board) {
+            long full = Candidates.Full(board.getSize());
+            long[] scan = board.getScratch();
+
+            for(int[] house : board.getHouses())
+            {
+                board.ScanCandidates(house, scan);
+                long once = scan[0];
+                long twice = scan[1];
+
+                // A number neither placed nor possible anywhere in the house
+                if(once != full)
+                {
+                    board.ScanValues(house, scan);
+                    if((once | scan[0]) != full) return false;
+                }
+
+                for(long hidden = once & ~twice; hidden != 0; hidden &= hidden - 1)
+                {
+                    int number = Candidates.First(hidden);
+                    for(int index : house)
+                    {
+                        if(!Candidates.Contains(board.getCandidates(index), number)) continue;
+
+                        if(!board.Assign(index, number)) return false;
+                        break;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+
+    /**
+     * Pointing: if a number within a block is confined to one row or column, remove it from the rest of that line.
+     * Claiming: if a number within a row or column is confined to one block, remove it from the rest of that block.
+     * <p>
+     * Each house is split into the segments it shares with the crossing houses, e.g. the rows of a block. A number held
+     * by exactly one segment is found for every number at once by OR-ing the segments, so a pass costs one read per
+     * Cell rather than one per Cell and number, which matters on large grids. The segments need rectangular blocks, so
+     * the rule does nothing in a layout with irregular regions.
+     */
+    private static final class LockedCandidates implements PropagationRule {
+
+        @Override
+        public String getName() {
+            return "LockedCandidates";
+        }
+
+        @Override
+        public boolean Apply(Board board) {
+            if(!board.getLayout().isRegular()) return true;
+
+            int size = board.getSize();
+            int blockRows = board.getBlockRows();
+            int blockColumns = board.getBlockColumns();
+            int[][] houses = board.getHouses();
+            long[] segments = board.getScratch();
+
+            for(int block = 0; block < size; ++block)
+            {
+                int[] house = houses[2 * size + block];
+
+                // Rows of the block are runs of blockColumns Cells, columns take every blockColumns-th Cell
+                long confined = Confined(board, house, blockRows, blockColumns, 1, segments);
+                for(; confined != 0; confined &= confined - 1)
+                {
+                    int number = Candidates.First(confined);
+                    int row = board.getRow(house[SegmentOf(segments, blockRows, number) * blockColumns]);
+                    if(!EliminateOutside(board, houses[row], block, true, number)) return false;
+                }
+                confined = Confined(board, house, blockColumns, 1, blockColumns, segments);
+                for(; confined != 0; confined &= confined - 1)
+                {
+                    int number = Candidates.First(confined);
+                    int column = board.getColumn(house[SegmentOf(segments, blockColumns, number)]);
+                    if(!EliminateOutside(board, houses[size + column], block, true, number)) return false;
+                }
+            }
+
+            for(int line = 0; line < 2 * size; ++line)
+            {
+                int[] house = houses[line];
+
+                // A row crosses blocks in runs of blockColumns Cells, a column in runs of blockRows Cells
+                int length = line < size ? blockColumns : blockRows;
+                long confined = Confined(board, house, size / length, length, 1, segments);
+                for(; confined != 0; confined &= confined - 1)
+                {
+                    int number = Candidates.First(confined);
+                    int block = board.getBlock(house[SegmentOf(segments, size / length, number) * length]);
+                    if(!EliminateOutside(board, houses[2 * size + block], line, false, number)) return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Collect the candidates of each segment of a house and find the numbers held by exactly one of them.
+         *
+         * @param count - Number of segments.
+         * @param stride - Offset in the house between the first Cells of consecutive segments.
+         * @param step - Offset in the house between consecutive Cells of a segment.
+         * @param segments - Receives the candidates of each segment.
+         *
+         * @return Mask of the numbers held by exactly one segment.
+         */
+        private static long Confined(Board board, int[] house, int count, int stride, int step, long[] segments) {
+            long once = 0;
+            long twice = 0;
+            int length = house.length / count;
+            for(int segment = 0; segment < count; ++segment)
+            {
+                long union = 0;
+                for(int i = 0; i < length; ++i) union |= board.getCandidates(house[segment * stride + i * step]);
+
+                segments[segment] = union;
+                twice |= once & union;
+                once |= union;
+            }
+            return once & ~twice;
+        }
+
+        private static int SegmentOf(long[] segments, int count, int number) {
+            int segment = 0;
+            while(!Candidates.Contains(segments[segment], number)) ++segment;
+            return segment;
+        }
+
+        /**
+         * Remove a number from every Cell of a house that is not also in the given block or line.
+         *
+         * @param keep - Block index if byBlock, otherwise line index, i.e. a row or size + a column.
+         */
+        private static boolean EliminateOutside(Board board, int[] house, int keep, boolean byBlock, int number) {
+            int size = board.getSize();
+            for(int index : house)
+            {
+                boolean inside = byBlock ? board.getBlock(index) == keep
+                        : keep < size ? board.getRow(index) == keep : board.getColumn(index) == keep - size;
+                if(!inside && !board.Eliminate(index, number)) return false;
+            }
+            return true;
+        }
+    }
+
+
+    /**
+     * If two Cells of a house hold the same two candidates, remove those numbers from the rest of the house.
+     */
+    private static final class NakedPairs implements PropagationRule {
+
+        @Override
+        public String getName() {
+            return "NakedPairs";
+        }
+
+        @Override
+        public boolean Apply(Board board) {
+            for(int[] house : board.getHouses())
+            {
+                for(int i = 0; i < house.length; ++i)
+                {
+                    long pair = board.getCandidates(house[i]);
+                    if(Candidates.Count(pair) != 2) continue;
+
+                    for(int j = i + 1; j < house.length; ++j)
+                    {
+                        if(board.getCandidates(house[j]) != pair) continue;
+
+                        for(int index : house)
+                        {
+                            if(index == house[i] || index == house[j]) continue;
+                            if(!board.Restrict(index, ~pair)) return false;
+                        }
+                        break;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+
+    /**
+     * If two numbers of a house can only go in the same two Cells, remove every other candidate from those Cells.
+     */
+    private static final class HiddenPairs implements PropagationRule {
+
+        @Override
+        public String getName() {
+            return "HiddenPairs";
+        }
+
+        @Override
+        public boolean Apply(Board board) {
+            long[] positions = board.getScratch();
+
+            for(int[] house : board.getHouses())
+            {
+                // Numbers possible in exactly two Cells of the house, the only ones that can form a hidden pair
+                long once = 0;
+                long twice = 0;
+                long thrice = 0;
+                for(int index : house)
+                {
+                    long candidates = board.getCandidates(index);
+                    thrice |= twice & candidates;
+                    twice |= once & candidates;
+                    once |= candidates;
+                }
+                long paired = twice & ~thrice;
+                if(Candidates.Count(paired) < 2) continue;
+
+                // Bit i of positions[n] is set if the i-th Cell of the house can hold number n
+                for(long numbers = paired; numbers != 0; numbers &= numbers - 1)
+                {
+                    int number = Candidates.First(numbers);
+                    long cells = 0;
+                    for(int i = 0; i < house.length; ++i)
+                    {
+                        if(Candidates.Contains(board.getCandidates(house[i]), number)) cells |= Candidates.Bit(i);
+                    }
+                    positions[number] = cells;
+                }
+
+                for(long firsts = paired; firsts != 0; firsts &= firsts - 1)
+                {
+                    int first = Candidates.First(firsts);
+                    for(long seconds = firsts & (firsts - 1); seconds != 0; seconds &= seconds - 1)
+                    {
+                        int second = Candidates.First(seconds);
+                        if(positions[second] != positions[first]) continue;
+
+                        long pair = Candidates.Bit(first) | Candidates.Bit(second);
+                        for(long cells = positions[first]; cells != 0; cells &= cells - 1)
+                        {
+                            if(!board.Restrict(house[Candidates.First(cells)], pair)) return false;
+                        }
+                        break;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,89 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a list of propagation rules over a Board until none of them makes any further change. Rules can be switched on
+ * and off by name, so the same pipeline can be tuned per run.
+ */
+public class Propagator {
+
+    private final List<PropagationRule> rules;
+
+
+    public Propagator(List<PropagationRule> rules) {
+        this.rules = List.copyOf(rules);
+    }
+
+
+    /**
+     * @return A pipeline with every built-in rule enabled.
+     */
+    public static Propagator Default() {
+        return new Propagator(PropagationRules.All());
+    }
+
+    /**
+     * @return A pipeline that makes no deductions, leaving the search to plain peer elimination.
+     */
+    public static Propagator None() {
+        return new Propagator(List.of());
+    }
+
+
+    public List<PropagationRule> getRules() {
+        return rules;
+    }
+
+
+    /**
+     * @param rule - Rule to add at the end of the pipeline.
+     *
+     * @return A new pipeline with the rule enabled.
+     */
+    public Propagator With(PropagationRule rule) {
+        List<PropagationRule> newRules = new ArrayList<>(this.rules);
+        if(!newRules.contains(rule)) newRules.add(rule);
+        return new Propagator(newRules);
+    }
+
+
+    /**
+     * @param name - Name of the rule to remove.
+     *
+     * @return A new pipeline with the rule disabled.
+     */
+    public Propagator Without(String name) {
+        List<PropagationRule> newRules = new ArrayList<>(this.rules);
+        newRules.removeIf(rule -> rule.getName().equals(name));
+        return new Propagator(newRules);
+    }
+
+
+    /**
+     * Apply the rules in order, starting again from the first rule whenever one changes the board, until a full pass
+     * makes no change. Every change goes through the board's trail, so it is undone with the rest of the node.
+     *
+     * @param board - Board to propagate.
+     *
+     * @return False if the board was found to have no solution, true otherwise.
+     */
+    public boolean Propagate(Board board) {
+        int ruleIndex = 0;
+        while(ruleIndex < this.rules.size())
+        {
+            int mark = board.Mark();
+            if(!this.rules.get(ruleIndex).Apply(board)) return false;
+
+            // Any change shows up as new trail entries, restart from the cheapest rule
+            ruleIndex = board.Mark() == mark ? ruleIndex + 1 : 0;
+        }
+        return true;
+    }
+
+
+    @Override
+    public String toString() {
+        return "Propagator" + this.rules.stream().map(PropagationRule::getName).toList();
+    }
+
+}
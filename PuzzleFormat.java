@@ -0,0 +1,168 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The common one-line-per-puzzle text format. A line holds one character per Cell in row order, '.' or '0' for an
+ * unfilled Cell, and the symbols 1-9, A-Z, a-z, then '@', '$', '%' for the numbers 0 upwards. The shape is taken from the
+ * line length, e.g. 81 characters for 9x9 and 256 for 16x16.
+ */
+public final class PuzzleFormat {
+
+    public static final String SYMBOLS = "123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz@$%";
+
+    private static final int[] SYMBOL_VALUES = new int[128];
+
+    static {
+        Arrays.fill(SYMBOL_VALUES, -1);
+        for(int i = 0; i < SYMBOLS.length(); ++i) SYMBOL_VALUES[SYMBOLS.charAt(i)] = i;
+    }
+
+    private PuzzleFormat() {
+    }
+
+
+    /**
+     * @param length - Number of Cells on the line.
+     *
+     * @return The number of possible numbers for that line length, or -1 if it is not a supported grid.
+     */
+    public static int SizeForLength(int length) {
+        int size = (int) Math.round(Math.sqrt(length));
+        return (size * size == length && size >= 1 && size <= Candidates.MAXIMUM_SIZE) ? size : -1;
+    }
+
+
+    /**
+     * Pick the block shape for a grid size, the most square one with no more block rows than block columns.
+     *
+     * @param size - Number of possible numbers.
+     *
+     * @return Number of rows in a block.
+     */
+    public static int BlockRowsForSize(int size) {
+        int blockRows = (int) Math.sqrt(size);
+        while(size % blockRows != 0) --blockRows;
+        return blockRows;
+    }
+
+
+    /**
+     * @param c - Character from a puzzle line.
+     *
+     * @return The number for the symbol, Board.EMPTY for an unfilled Cell, or -2 if the character is not a symbol.
+     */
+    public static int SymbolValue(int c) {
+        if(c == '.' || c == '0') return Board.EMPTY;
+        return (c >= 0 && c < SYMBOL_VALUES.length && SYMBOL_VALUES[c] >= 0) ? SYMBOL_VALUES[c] : -2;
+    }
+
+
+    /**
+     * Clear the board and assign the givens of a puzzle line to it.
+     *
+     * @param line - Puzzle line of board.getCellCount() characters.
+     * @param board - Board to fill.
+     *
+     * @return False if the givens contradict each other, true otherwise.
+     *
+     * @throws IllegalArgumentException If the line does not fit the board or holds an unknown symbol.
+     */
+    public static boolean Decode(CharSequence line, Board board) {
+        if(line.length() != board.getCellCount())
+            throw new IllegalArgumentException("Expected " + board.getCellCount() + " characters, got " + line.length());
+
+        board.Clear();
+
+        boolean consistent = true;
+        for(int index = 0; index < line.length(); ++index)
+        {
+            consistent &= DecodeCell(line.charAt(index), index, board);
+        }
+        return consistent;
+    }
+
+
+    /**
+     * Clear the board and assign the givens of a puzzle line held in a byte buffer, such as a memory-mapped file,
+     * without creating a String.
+     *
+     * @param bytes - Buffer holding the line.
+     * @param offset - Absolute position of the line's first character.
+     * @param board - Board to fill, its Cell count being the line length.
+     *
+     * @return False if the givens contradict each other, true otherwise.
+     *
+     * @throws IllegalArgumentException If the line holds an unknown symbol.
+     */
+    public static boolean Decode(ByteBuffer bytes, int offset, Board board) {
+        board.Clear();
+
+        boolean consistent = true;
+        for(int index = 0; index < board.getCellCount(); ++index)
+        {
+            consistent &= DecodeCell(bytes.get(offset + index), index, board);
+        }
+        return consistent;
+    }
+
+
+    /**
+     * Assign one character of a puzzle to the board.
+     *
+     * @param c - Character for the Cell.
+     * @param index - Index of the Cell.
+     * @param board - Board to fill.
+     *
+     * @return False if the given contradicts earlier givens, true otherwise.
+     *
+     * @throws IllegalArgumentException If the character is not a symbol of the board's size.
+     */
+    public static boolean DecodeCell(int c, int index, Board board) {
+        int value = SymbolValue(c);
+        if(value == Board.EMPTY) return true;
+
+        if(value < 0 || value >= board.getSize())
+            throw new IllegalArgumentException("Unexpected character '" + (char) c + "' at " + index);
+
+        // A number already removed from the Cell duplicates a given in the same row, column, or block
+        if(!Candidates.Contains(board.getCandidates(index), value)) return false;
+        return board.Assign(index, value);
+    }
+
+
+    /**
+     * Write the board as a puzzle line into a reusable buffer.
+     *
+     * @param board - Board to encode.
+     * @param line - Buffer of at least board.getCellCount() characters.
+     */
+    public static void Encode(Board board, char[] line) {
+        for(int index = 0; index < board.getCellCount(); ++index)
+        {
+            line[index] = board.isFilled(index) ? SYMBOLS.charAt(board.getValue(index)) : '.';
+        }
+    }
+
+
+    /**
+     * Write the board as a puzzle line of ASCII bytes.
+     *
+     * @param board - Board to encode.
+     * @param bytes - Destination array.
+     * @param offset - Position of the line's first character in the array.
+     */
+    public static void Encode(Board board, byte[] bytes, int offset) {
+        for(int index = 0; index < board.getCellCount(); ++index)
+        {
+            bytes[offset + index] = (byte) (board.isFilled(index) ? SYMBOLS.charAt(board.getValue(index)) : '.');
+        }
+    }
+
+
+    public static String Encode(Board board) {
+        char[] line = new char[board.getCellCount()];
+        Encode(board, line);
+        return new String(line);
+    }
+
+}
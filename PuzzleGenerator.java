@@ -0,0 +1,358 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates puzzles with a unique solution. A puzzle starts from a random complete grid, then Cells are cleared in a
+ * random order, keeping each removal only if the puzzle still has a single solution. Bulk generation runs the
+ * full grid, dig, verify and write stages as a pipeline of thread pools joined by bounded queues.
+ */
+public class PuzzleGenerator {
+
+    private static final byte[] POISON = new byte[0];
+
+    private final int blockRows;
+    private final int blockColumns;
+    private final int size;
+    private final int cellCount;
+    private final SplittableRandom seedRandom;
+
+    private final BoardSolver uniquenessSolver = new BoardSolver(Propagator.Default(), SolverEngine.BACKTRACKING);
+    private final BoardSolver verifySolver = new BoardSolver(Propagator.None(), SolverEngine.DANCING_LINKS);
+    private final ThreadLocal<Board> boards;
+    private final int[] cellOrder;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int speculation = 1;
+
+    private long generated;
+    private long elapsedNanos;
+
+
+    /**
+     * @param blockRows - Number of rows in a block.
+     * @param blockColumns - Number of columns in a block.
+     * @param seed - Seed for the random grids and removal orders.
+     */
+    public PuzzleGenerator(int blockRows, int blockColumns, long seed) {
+        this.blockRows = blockRows;
+        this.blockColumns = blockColumns;
+        this.size = blockRows * blockColumns;
+        this.cellCount = this.size * this.size;
+        this.seedRandom = new SplittableRandom(seed);
+
+        this.boards = ThreadLocal.withInitial(() -> new Board(blockRows, blockColumns));
+        this.cellOrder = new int[this.cellCount];
+        for(int i = 0; i < this.cellCount; ++i) this.cellOrder[i] = i;
+    }
+
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @param threads - Number of dig workers in bulk generation.
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getSpeculation() {
+        return speculation;
+    }
+
+    /**
+     * @param speculation - Number of candidate removals tested in parallel while digging one puzzle. 1 digs
+     *                      sequentially, which suits bulk generation where every core is already digging its own puzzle.
+     */
+    public void setSpeculation(int speculation) {
+        this.speculation = speculation;
+    }
+
+    public long getGenerated() {
+        return generated;
+    }
+
+    public double getPuzzlesPerSecond() {
+        return elapsedNanos == 0 ? 0 : generated * 1e9 / elapsedNanos;
+    }
+
+
+    /**
+     * Generate a single puzzle on the calling thread, speculating across the common pool if speculation is above 1.
+     *
+     * @return Value of each Cell of the puzzle, Board.EMPTY for unfilled Cells, or null if the thread was interrupted.
+     */
+    public byte[] Generate() {
+        SplittableRandom random = this.seedRandom.split();
+        return Dig(CreateFullGrid(random), random);
+    }
+
+
+    /**
+     * Generate puzzles across every core and write them one per line in PuzzleFormat.
+     *
+     * @param count - Number of puzzles to generate.
+     * @param output - Destination of the puzzle lines.
+     *
+     * @throws IOException If writing fails.
+     */
+    public void GenerateBulk(int count, Writer output) throws IOException {
+        long start = System.nanoTime();
+        this.generated = 0;
+
+        BlockingQueue<byte[]> fullGrids = new ArrayBlockingQueue<>(2 * this.threads);
+        BlockingQueue<byte[]> dugPuzzles = new ArrayBlockingQueue<>(2 * this.threads);
+        BlockingQueue<byte[]> verifiedPuzzles = new ArrayBlockingQueue<>(2 * this.threads);
+
+        int verifiers = Math.max(1, this.threads / 4);
+        // Daemon threads, so a stage still finishing a long dig or solve after the run never holds the JVM open
+        ExecutorService stages = Executors.newFixedThreadPool(1 + this.threads + verifiers, Thread.ofPlatform().name("generator-stage-", 0).daemon().factory());
+        List<SplittableRandom> randoms = new ArrayList<>();
+        for(int i = 0; i <= this.threads; ++i) randoms.add(this.seedRandom.split());
+
+        try
+        {
+            // Stage 1: complete grids
+            stages.submit(() -> Stage(null, grid -> CreateFullGrid(randoms.get(0)), fullGrids));
+
+            // Stage 2: dig each grid down to a unique puzzle
+            for(int i = 1; i <= this.threads; ++i)
+            {
+                SplittableRandom random = randoms.get(i);
+                stages.submit(() -> Stage(fullGrids, grid -> Dig(grid, random), dugPuzzles));
+            }
+
+            // Stage 3: verify uniqueness again with a different engine
+            for(int i = 0; i < verifiers; ++i)
+            {
+                stages.submit(() -> Stage(dugPuzzles, puzzle -> IsUnique(puzzle, this.verifySolver) ? puzzle : null, verifiedPuzzles));
+            }
+
+            // Stage 4: write on the calling thread
+            Board board = new Board(this.blockRows, this.blockColumns);
+            char[] line = new char[this.cellCount];
+            while(this.generated < count)
+            {
+                byte[] puzzle = verifiedPuzzles.take();
+                if(puzzle == POISON) throw new IOException("Generator stage failed");
+
+                LoadGivens(puzzle, board);
+                PuzzleFormat.Encode(board, line);
+                output.write(line);
+                output.write('\n');
+                ++this.generated;
+            }
+            output.flush();
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating", e);
+        }
+        finally
+        {
+            stages.shutdownNow();
+            this.elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+
+    /**
+     * @return Summary of the last bulk run, including the throughput.
+     */
+    public String Report() {
+        return String.format("%d %dx%d puzzles in %.3f s, %.1f puzzles/sec",
+                generated, size, size, elapsedNanos / 1e9, getPuzzlesPerSecond());
+    }
+
+
+    /**
+     * Run one pipeline stage until interrupted, taking each item from the input queue and putting each non-null result
+     * on the next queue. A failure, or POISON taken from the input, is put on the next queue as POISON and ends the
+     * stage, so the marker always reaches the writer rather than being consumed as a puzzle or dropped.
+     *
+     * @param input - Queue of items to process, or null for a stage that creates its own.
+     * @param step - Work done on each item, null for a source stage, returning null to pass nothing on.
+     * @param next - Queue the results are put on.
+     */
+    private void Stage(BlockingQueue<byte[]> input, StageStep step, BlockingQueue<byte[]> next) {
+        try
+        {
+            while(!Thread.currentThread().isInterrupted())
+            {
+                byte[] item = input == null ? null : input.take();
+                if(item == POISON)
+                {
+                    next.put(POISON);
+                    return;
+                }
+
+                byte[] result;
+                try
+                {
+                    result = step.Run(item);
+                }
+                catch(RuntimeException e)
+                {
+                    next.put(POISON);
+                    throw e;
+                }
+                if(result != null) next.put(result);
+            }
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface StageStep {
+        byte[] Run(byte[] item);
+    }
+
+
+    /**
+     * Create a random complete grid by solving an empty board in a random Cell order, then relabelling the numbers
+     * with a random permutation.
+     *
+     * @param random - Source of randomness.
+     *
+     * @return Value of each Cell of the complete grid.
+     */
+    public byte[] CreateFullGrid(SplittableRandom random) {
+        Board board = this.boards.get();
+        board.Clear();
+
+        int[] order = this.cellOrder.clone();
+        Shuffle(order, random);
+        this.uniquenessSolver.Solve(board, order, 1);
+
+        int[] relabel = new int[this.size];
+        for(int i = 0; i < this.size; ++i) relabel[i] = i;
+        Shuffle(relabel, random);
+
+        byte[] grid = new byte[this.cellCount];
+        for(int index = 0; index < this.cellCount; ++index) grid[index] = (byte) relabel[board.getValue(index)];
+        return grid;
+    }
+
+
+    /**
+     * Clear Cells of a complete grid in a random order, keeping each removal only if the puzzle stays unique. A removal
+     * rejected once stays rejected, since clearing more Cells can never bring back uniqueness, so speculative tests
+     * only need repeating for removals accepted after an earlier one in the same round.
+     *
+     * @param grid - Complete grid, cleared in place.
+     * @param random - Source of randomness.
+     *
+     * @return The puzzle, or null if the thread was interrupted before it was finished.
+     */
+    public byte[] Dig(byte[] grid, SplittableRandom random) {
+        int[] order = this.cellOrder.clone();
+        Shuffle(order, random);
+
+        if(this.speculation <= 1)
+        {
+            for(int index : order)
+            {
+                if(Thread.currentThread().isInterrupted()) return null;
+
+                byte value = grid[index];
+                grid[index] = Board.EMPTY;
+                if(!IsUnique(grid, this.uniquenessSolver)) grid[index] = value;
+            }
+            return grid;
+        }
+
+        int next = 0;
+        int[] pending = new int[order.length];
+        int pendingCount = 0;
+        while(next < order.length || pendingCount > 0)
+        {
+            if(Thread.currentThread().isInterrupted()) return null;
+
+            // Retest removals carried over from the last round first, then fresh ones
+            int width = Math.min(this.speculation, pendingCount + order.length - next);
+            int[] batch = new int[width];
+            for(int i = 0; i < width; ++i) batch[i] = i < pendingCount ? pending[i] : order[next++];
+            pendingCount = 0;
+
+            List<ForkJoinTask<Boolean>> tests = new ArrayList<>();
+            for(int index : batch) tests.add(ForkJoinPool.commonPool().submit(() -> IsUniqueWithout(grid, index)));
+
+            boolean committed = false;
+            for(int i = 0; i < width; ++i)
+            {
+                if(!tests.get(i).join()) continue;
+
+                if(!committed)
+                {
+                    grid[batch[i]] = Board.EMPTY;
+                    committed = true;
+                }
+                else pending[pendingCount++] = batch[i];
+            }
+        }
+        return grid;
+    }
+
+
+    private boolean IsUniqueWithout(byte[] grid, int index) {
+        byte[] puzzle = grid.clone();
+        puzzle[index] = Board.EMPTY;
+        return IsUnique(puzzle, this.uniquenessSolver);
+    }
+
+
+    /**
+     * @param puzzle - Value of each Cell, Board.EMPTY for unfilled Cells.
+     * @param solver - Solver used to count, stopping at 2 solutions.
+     *
+     * @return Whether the puzzle has exactly one solution, false if the thread was interrupted during the search.
+     */
+    private boolean IsUnique(byte[] puzzle, BoardSolver solver) {
+        Board board = this.boards.get();
+        Thread thread = Thread.currentThread();
+        return LoadGivens(puzzle, board) && solver.Solve(board, this.cellOrder, 2, thread::isInterrupted) == 1;
+    }
+
+
+    /**
+     * Clear the board and assign the puzzle's givens to it.
+     *
+     * @return False if the givens contradict each other, true otherwise.
+     */
+    private static boolean LoadGivens(byte[] puzzle, Board board) {
+        board.Clear();
+
+        boolean consistent = true;
+        for(int index = 0; index < puzzle.length; ++index)
+        {
+            if(puzzle[index] != Board.EMPTY) consistent &= board.Assign(index, puzzle[index]);
+        }
+        return consistent;
+    }
+
+
+    private static void Shuffle(int[] array, SplittableRandom random) {
+        for(int i = array.length - 1; i > 0; --i)
+        {
+            int j = random.nextInt(i + 1);
+            int swap = array[i];
+            array[i] = array[j];
+            array[j] = swap;
+        }
+    }
+
+}
@@ -0,0 +1,274 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The houses of a grid, and the peers of every Cell, computed once per layout and shared by every Board and Grid that
+ * uses it. A layout never changes after it is built, so sharing needs no copying or locking.
+ * <p>
+ * Houses are held as every row, then every column, then every region, then any extra houses. In the standard layout
+ * the regions are the blockRows x blockColumns blocks. A jigsaw layout replaces them with irregular regions of size
+ * Cells each, and either layout can add the two main diagonals as extra houses. The shape is kept for the formats and
+ * printing, which only ever depend on the size.
+ */
+public final class RegionLayout {
+
+    private static final ConcurrentHashMap<Long, RegionLayout> STANDARD = new ConcurrentHashMap<>();
+
+    private final int blockRows;
+    private final int blockColumns;
+    private final int size;
+    private final int cellCount;
+
+    private final int[] regions;
+    private final boolean regular;
+    private final boolean diagonals;
+
+    private final int[][] houses;
+    private final int[][] housesOf;
+    private final int[][] peers;
+
+
+    private RegionLayout(int blockRows, int blockColumns, int[] regions, boolean regular, boolean diagonals) {
+        this.blockRows = blockRows;
+        this.blockColumns = blockColumns;
+        this.size = blockRows * blockColumns;
+        this.cellCount = this.size * this.size;
+        this.regions = regions;
+        this.regular = regular;
+        this.diagonals = diagonals;
+
+        this.houses = CreateHouses();
+        this.housesOf = CreateHousesOf();
+        this.peers = CreatePeers();
+    }
+
+
+    /**
+     * @param blockRows - Number of rows in a block.
+     * @param blockColumns - Number of columns in a block.
+     *
+     * @return The shared layout of rows, columns and rectangular blocks for the shape.
+     */
+    public static RegionLayout Standard(int blockRows, int blockColumns) {
+        return Shared(blockRows, blockColumns, false);
+    }
+
+
+    /**
+     * @param blockRows - Number of rows in a block.
+     * @param blockColumns - Number of columns in a block.
+     *
+     * @return The shared layout of the shape with both main diagonals as extra houses, as in X-Sudoku.
+     */
+    public static RegionLayout Diagonal(int blockRows, int blockColumns) {
+        return Shared(blockRows, blockColumns, true);
+    }
+
+
+    /**
+     * @param blockRows - Number of rows in a block of the shape the layout replaces, setting its size.
+     * @param blockColumns - Number of columns in a block of the shape the layout replaces.
+     * @param regions - Region of each Cell index, from 0 to size - 1, each region holding size Cells.
+     *
+     * @return A layout of rows, columns and the given irregular regions.
+     *
+     * @throws IllegalArgumentException If the regions are out of range or not all of size Cells.
+     */
+    public static RegionLayout Jigsaw(int blockRows, int blockColumns, int[] regions) {
+        int size = blockRows * blockColumns;
+        if(regions.length != size * size) throw new IllegalArgumentException(regions.length + " regions for " + size * size + " Cells");
+
+        int[] counts = new int[size];
+        for(int region : regions)
+        {
+            if(region < 0 || region >= size) throw new IllegalArgumentException("Region " + region + " outside 0 to " + (size - 1));
+            ++counts[region];
+        }
+        for(int region = 0; region < size; ++region)
+        {
+            if(counts[region] != size) throw new IllegalArgumentException("Region " + region + " has " + counts[region] + " Cells, not " + size);
+        }
+        return new RegionLayout(blockRows, blockColumns, regions.clone(), false, false);
+    }
+
+
+    /**
+     * @return This layout with both main diagonals as extra houses, or itself if it already has them.
+     */
+    public RegionLayout WithDiagonals() {
+        if(this.diagonals) return this;
+        if(this.regular) return Diagonal(this.blockRows, this.blockColumns);
+        return new RegionLayout(this.blockRows, this.blockColumns, this.regions, false, true);
+    }
+
+
+    private static RegionLayout Shared(int blockRows, int blockColumns, boolean diagonals) {
+        long key = (long) blockRows << 32 | (long) blockColumns << 1 | (diagonals ? 1 : 0);
+        return STANDARD.computeIfAbsent(key, k -> new RegionLayout(blockRows, blockColumns, Blocks(blockRows, blockColumns), true, diagonals));
+    }
+
+
+    private static int[] Blocks(int blockRows, int blockColumns) {
+        int size = blockRows * blockColumns;
+        int[] blocks = new int[size * size];
+        for(int index = 0; index < blocks.length; ++index)
+        {
+            blocks[index] = (index / size / blockRows) * blockRows + (index % size) / blockColumns;
+        }
+        return blocks;
+    }
+
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getBlockRows() {
+        return blockRows;
+    }
+
+    public int getBlockColumns() {
+        return blockColumns;
+    }
+
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * @return Whether the regions are the rectangular blocks of the shape.
+     */
+    public boolean isRegular() {
+        return regular;
+    }
+
+    public boolean hasDiagonals() {
+        return diagonals;
+    }
+
+    /**
+     * @return Whether this is the plain layout of rows, columns and blocks.
+     */
+    public boolean isStandard() {
+        return regular && !diagonals;
+    }
+
+    /**
+     * @param index - Index of the Cell.
+     *
+     * @return Region of the Cell, its house being getHouses()[2 * size + region].
+     */
+    public int getRegion(int index) {
+        return regions[index];
+    }
+
+    /**
+     * @return Every row, then every column, then every region, then the diagonals if any, each holding the indices of
+     * its Cells.
+     */
+    public int[][] getHouses() {
+        return houses;
+    }
+
+    /**
+     * @param index - Index of the Cell.
+     *
+     * @return Positions in getHouses() of every house holding the Cell, in ascending order.
+     */
+    public int[] getHousesOf(int index) {
+        return housesOf[index];
+    }
+
+    /**
+     * @param index - Index of the Cell.
+     *
+     * @return Indices of every other Cell sharing a house with it, in ascending order.
+     */
+    public int[] getPeers(int index) {
+        return peers[index];
+    }
+
+    /**
+     * @return Peers of every Cell by index, as getPeers(index) gives them one at a time.
+     */
+    public int[][] getPeers() {
+        return peers;
+    }
+
+
+    private int[][] CreateHouses() {
+        int[][] newHouses = new int[3 * this.size + (this.diagonals ? 2 : 0)][this.size];
+        int[] filled = new int[this.size];
+
+        for(int index = 0; index < this.cellCount; ++index)
+        {
+            int row = index / this.size;
+            int column = index % this.size;
+            int region = this.regions[index];
+
+            newHouses[row][column] = index;
+            newHouses[this.size + column][row] = index;
+            newHouses[2 * this.size + region][filled[region]++] = index;
+        }
+
+        if(this.diagonals)
+        {
+            for(int i = 0; i < this.size; ++i)
+            {
+                newHouses[3 * this.size][i] = i * this.size + i;
+                newHouses[3 * this.size + 1][i] = i * this.size + this.size - 1 - i;
+            }
+        }
+        return newHouses;
+    }
+
+
+    private int[][] CreateHousesOf() {
+        int[] counts = new int[this.cellCount];
+        for(int[] house : this.houses) for(int index : house) ++counts[index];
+
+        int[][] newHousesOf = new int[this.cellCount][];
+        for(int index = 0; index < this.cellCount; ++index) newHousesOf[index] = new int[counts[index]];
+
+        Arrays.fill(counts, 0);
+        for(int h = 0; h < this.houses.length; ++h)
+        {
+            for(int index : this.houses[h]) newHousesOf[index][counts[index]++] = h;
+        }
+        return newHousesOf;
+    }
+
+
+    /**
+     * Collect the peers of every Cell from its houses, marking each Cell once with a stamp per Cell rather than
+     * scanning the whole grid, so the cost grows with the number of peers rather than the number of Cells.
+     */
+    private int[][] CreatePeers() {
+        int[][] newPeers = new int[this.cellCount][];
+        int[] stamps = new int[this.cellCount];
+        int[] found = new int[this.houses.length > 3 * this.size ? 5 * this.size : 3 * this.size];
+
+        for(int index = 0; index < this.cellCount; ++index)
+        {
+            int stamp = index + 1;
+            stamps[index] = stamp;
+
+            int count = 0;
+            for(int h : this.housesOf[index])
+            {
+                for(int peer : this.houses[h])
+                {
+                    if(stamps[peer] == stamp) continue;
+                    stamps[peer] = stamp;
+                    found[count++] = peer;
+                }
+            }
+
+            int[] cellPeers = Arrays.copyOf(found, count);
+            Arrays.sort(cellPeers);
+            newPeers[index] = cellPeers;
+        }
+        return newPeers;
+    }
+
+}
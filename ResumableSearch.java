@@ -0,0 +1,528 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Search whose state lives in an explicit frontier rather than on the call stack, so a long solve or solution count can
+ * be checkpointed to disk and resumed after a restart, with any number of threads.
+ * <p>
+ * The frontier is a set of subproblems, each the filled Cells of a partial assignment, stored as a BinaryPuzzleFormat
+ * record; together they cover every solution not yet counted, and no two share one. Threads take a subproblem and
+ * search it for one time slice, depth first with the fewest-candidates choice and propagation of the backtracking
+ * engine, but on an explicit stack instead of recursion. When the slice runs out, the numbers not yet tried at every
+ * level of the stack become new subproblems on the frontier, so no work is repeated, and idle threads pick them up. Only
+ * the slices in progress are lost on a crash.
+ * <p>
+ * A checkpoint holds the count so far and every subproblem queued or in progress, so resuming it reaches the same number
+ * of solutions as an uninterrupted run.
+ */
+public class ResumableSearch {
+
+    private static final int MAGIC = 0x5344434B;
+    private static final int VERSION = 1;
+
+    private static final int STOP_INTERVAL_MASK = 1023;
+
+    private final Propagator propagator;
+    private final int threads;
+    private Duration slice = Duration.ofSeconds(1);
+    private Path checkpointPath;
+    private Duration checkpointInterval = Duration.ofMinutes(1);
+    private final Object checkpointLock = new Object();
+
+    // Guarded by this
+    private final Deque<byte[]> frontier = new ArrayDeque<>();
+    private final Set<byte[]> running = new LinkedHashSet<>();
+    private long maximumSolutions;
+    private long solutions;
+    private byte[] solution;
+    private int active;
+    private long splits;
+    private long checkpoints;
+    private IOException checkpointFailure;
+    private volatile boolean finished;
+
+    private int blockRows;
+    private int blockColumns;
+    private RegionLayout layout;
+
+
+    /**
+     * @param propagator - Propagation run after every assignment.
+     * @param threads - Number of searching threads.
+     */
+    public ResumableSearch(Propagator propagator, int threads) {
+        if(threads < 1) throw new IllegalArgumentException("Threads " + threads + " below 1");
+        this.propagator = propagator;
+        this.threads = threads;
+    }
+
+
+    /**
+     * @param slice - Time a subproblem is searched before the rest of it goes back on the frontier, one second by
+     * default.
+     */
+    public void setSlice(Duration slice) {
+        this.slice = slice;
+    }
+
+    /**
+     * @param path - File the checkpoints are written to, replaced atomically each time, or null for none.
+     * @param interval - Time between checkpoints, one minute by default.
+     */
+    public void setCheckpoint(Path path, Duration interval) {
+        this.checkpointPath = path;
+        this.checkpointInterval = interval;
+    }
+
+    public synchronized long getSolutions() {
+        return Math.min(solutions, maximumSolutions);
+    }
+
+    /**
+     * @return A solved copy of the board if the search stopped at the maximum, or null.
+     */
+    public synchronized Board getSolution() {
+        if(solution == null) return null;
+
+        Board board = new Board(layout);
+        BinaryPuzzleFormat.Decode(ByteBuffer.wrap(solution), board);
+        return board;
+    }
+
+    public synchronized int getFrontierSize() {
+        return frontier.size() + running.size();
+    }
+
+    public synchronized long getSplits() {
+        return splits;
+    }
+
+    public synchronized long getCheckpoints() {
+        return checkpoints;
+    }
+
+
+    /**
+     * Search a board from the start.
+     *
+     * @param board - Board holding the givens. It is not changed.
+     * @param maximumSolutions - Number of solutions to stop at, or Long.MAX_VALUE to count them all.
+     *
+     * @return Number of solutions found, at most the maximum.
+     *
+     * @throws IOException If writing a checkpoint fails. A failed periodic checkpoint stops the search, leaving the last
+     *                     one written to resume from.
+     * @throws IllegalArgumentException If checkpointing a board whose layout is not the standard one, since a checkpoint
+     *                                  only records the shape.
+     */
+    public long Start(Board board, long maximumSolutions) throws IOException {
+        if(this.checkpointPath != null && !board.getLayout().isStandard())
+        {
+            throw new IllegalArgumentException("Checkpoints only record the shape, not a jigsaw or diagonal layout");
+        }
+
+        synchronized(this)
+        {
+            this.blockRows = board.getBlockRows();
+            this.blockColumns = board.getBlockColumns();
+            this.layout = board.getLayout();
+            this.maximumSolutions = maximumSolutions;
+            this.solutions = 0;
+            this.solution = null;
+            this.frontier.clear();
+            this.frontier.add(Encode(board));
+        }
+
+        // Enough subproblems up front that every thread has work from the first slice
+        Board scratch = new Board(board);
+        for(int expanded = 0; expanded < 4 * this.threads && !this.frontier.isEmpty() && this.frontier.size() < 8 * this.threads; ++expanded)
+        {
+            byte[] subproblem = this.frontier.pollFirst();
+            List<byte[]> children = Split(subproblem, scratch);
+            if(children == null)
+            {
+                this.frontier.addLast(subproblem);
+                break;
+            }
+            children.forEach(this.frontier::addLast);
+        }
+        return Run();
+    }
+
+
+    /**
+     * Continue a search from a checkpoint, written by this or another ResumableSearch with any number of threads.
+     *
+     * @param checkpoint - Checkpoint file.
+     *
+     * @return Number of solutions found, at most the maximum recorded in the checkpoint.
+     *
+     * @throws IOException If the checkpoint cannot be read or writing a new one fails, which stops the search.
+     * @throws IllegalArgumentException If the file is not a checkpoint.
+     */
+    public long Resume(Path checkpoint) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(checkpoint));
+        if(bytes.getInt() != MAGIC || bytes.getInt() != VERSION) throw new IllegalArgumentException(checkpoint + " is not a checkpoint");
+
+        synchronized(this)
+        {
+            this.blockRows = bytes.get();
+            this.blockColumns = bytes.get();
+            this.layout = RegionLayout.Standard(this.blockRows, this.blockColumns);
+            this.maximumSolutions = bytes.getLong();
+            this.solutions = bytes.getLong();
+            this.solution = bytes.get() != 0 ? ReadRecord(bytes) : null;
+            this.frontier.clear();
+
+            int count = bytes.getInt();
+            for(int i = 0; i < count; ++i) this.frontier.addLast(ReadRecord(bytes));
+        }
+        return Run();
+    }
+
+
+    /**
+     * Write the count and every subproblem not yet finished. Called periodically while running, and safe to call from
+     * any thread.
+     *
+     * @throws IOException If writing fails.
+     */
+    public void Checkpoint() throws IOException {
+        if(this.checkpointPath == null) return;
+
+        ByteBuffer bytes;
+        synchronized(this)
+        {
+            int length = 4 + 4 + 2 + 8 + 8 + 1 + 4 + (this.solution == null ? 0 : this.solution.length);
+            for(byte[] subproblem : this.running) length += subproblem.length;
+            for(byte[] subproblem : this.frontier) length += subproblem.length;
+
+            bytes = ByteBuffer.allocate(length);
+            bytes.putInt(MAGIC).putInt(VERSION);
+            bytes.put((byte) this.blockRows).put((byte) this.blockColumns);
+            bytes.putLong(this.maximumSolutions).putLong(this.solutions);
+            bytes.put((byte) (this.solution == null ? 0 : 1));
+            if(this.solution != null) bytes.put(this.solution);
+
+            // Subproblems in progress go first so they are taken first on resume
+            bytes.putInt(this.running.size() + this.frontier.size());
+            for(byte[] subproblem : this.running) bytes.put(subproblem);
+            for(byte[] subproblem : this.frontier) bytes.put(subproblem);
+            ++this.checkpoints;
+        }
+
+        synchronized(this.checkpointLock)
+        {
+            Path temporary = this.checkpointPath.resolveSibling(this.checkpointPath.getFileName() + ".tmp");
+            Files.write(temporary, bytes.array());
+            Files.move(temporary, this.checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+
+    /**
+     * @return Summary of the search progress.
+     */
+    public synchronized String Report() {
+        return String.format("%d solutions, %d subproblems left, %d splits, %d checkpoints",
+                getSolutions(), getFrontierSize(), splits, checkpoints);
+    }
+
+
+    private long Run() throws IOException {
+        synchronized(this)
+        {
+            this.finished = this.solutions >= this.maximumSolutions;
+            this.running.clear();
+            this.active = 0;
+            this.checkpointFailure = null;
+        }
+
+        ScheduledExecutorService checkpointer = null;
+        if(this.checkpointPath != null)
+        {
+            checkpointer = Executors.newSingleThreadScheduledExecutor();
+            long interval = this.checkpointInterval.toMillis();
+            checkpointer.scheduleAtFixedRate(() -> {
+                try
+                {
+                    Checkpoint();
+                }
+                catch(IOException e)
+                {
+                    // Searching on without checkpoints would risk the work they exist to protect, so stop instead
+                    synchronized(this)
+                    {
+                        if(this.checkpointFailure == null) this.checkpointFailure = e;
+                        this.finished = true;
+                        notifyAll();
+                    }
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        }
+
+        List<Future<?>> workers = new ArrayList<>();
+        try(ExecutorService pool = Executors.newFixedThreadPool(this.threads))
+        {
+            for(int i = 0; i < this.threads; ++i) workers.add(pool.submit(this::Work));
+        }
+        finally
+        {
+            if(checkpointer != null) checkpointer.shutdownNow();
+        }
+
+        // A failed thread leaves its subproblem running, so the last periodic checkpoint is kept rather than replaced
+        for(Future<?> worker : workers)
+        {
+            try
+            {
+                worker.get();
+            }
+            catch(ExecutionException e)
+            {
+                throw new IllegalStateException("Search failed", e.getCause());
+            }
+            catch(InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while searching", e);
+            }
+        }
+
+        IOException failure;
+        synchronized(this)
+        {
+            failure = this.checkpointFailure;
+        }
+        if(failure != null) throw failure;
+
+        // The final checkpoint has an empty frontier, resuming it returns the answer at once
+        Checkpoint();
+        return getSolutions();
+    }
+
+
+    private void Work() {
+        Board board = new Board(this.layout);
+        Stack stack = new Stack(board.getCellCount() + 1);
+
+        byte[] subproblem;
+        while((subproblem = Take()) != null)
+        {
+            try
+            {
+                Search(subproblem, board, stack);
+            }
+            catch(RuntimeException e)
+            {
+                synchronized(this)
+                {
+                    this.finished = true;
+                    notifyAll();
+                }
+                throw e;
+            }
+        }
+    }
+
+
+    private void Search(byte[] subproblem, Board board, Stack stack) {
+        long deadline = System.nanoTime() + this.slice.toNanos();
+        long maximum;
+        synchronized(this)
+        {
+            maximum = this.maximumSolutions - this.solutions;
+        }
+
+        if(!BinaryPuzzleFormat.Decode(ByteBuffer.wrap(subproblem), board) || !this.propagator.Propagate(board))
+        {
+            Finish(subproblem, 0, null, List.of());
+            return;
+        }
+
+        int index = board.SelectUnfilledCell();
+        if(index < 0)
+        {
+            Finish(subproblem, 1, Encode(board), List.of());
+            return;
+        }
+
+        int depth = stack.Push(0, index, board);
+        long found = 0;
+        byte[] solved = null;
+        boolean stopped = false;
+        long nodes = 0;
+        while(depth >= 0)
+        {
+            if(stack.remaining[depth] == 0)
+            {
+                board.Undo(stack.marks[depth]);
+                --depth;
+                continue;
+            }
+
+            if((++nodes & STOP_INTERVAL_MASK) == 0 && (this.finished || System.nanoTime() - deadline > 0))
+            {
+                stopped = true;
+                break;
+            }
+
+            // Back to this level's state, then try its next number
+            int number = Candidates.First(stack.remaining[depth]);
+            stack.remaining[depth] &= stack.remaining[depth] - 1;
+            board.Undo(stack.marks[depth]);
+            if(!board.Assign(stack.cells[depth], number) || !this.propagator.Propagate(board)) continue;
+
+            index = board.SelectUnfilledCell();
+            if(index >= 0)
+            {
+                depth = stack.Push(depth + 1, index, board);
+                continue;
+            }
+
+            // Keep the latest solution, other threads' slices may bring the count to the maximum before this one does
+            if(solved == null) solved = Encode(board);
+            else BinaryPuzzleFormat.Encode(board, ByteBuffer.wrap(solved), true);
+            if(++found >= maximum) break;
+        }
+
+        // Deepest level first, so the frontier carries on depth first from where this slice stopped
+        List<byte[]> unfinished = new ArrayList<>();
+        for(int level = depth; stopped && level >= 0; --level)
+        {
+            board.Undo(stack.marks[level]);
+            for(long remaining = stack.remaining[level]; remaining != 0; remaining &= remaining - 1)
+            {
+                int mark = board.Mark();
+                board.Assign(stack.cells[level], Candidates.First(remaining));
+                unfinished.add(Encode(board));
+                board.Undo(mark);
+            }
+        }
+        Finish(subproblem, found, solved, unfinished);
+    }
+
+
+    // Block until a subproblem is free, or return null once the frontier is empty and no thread can add to it
+    private synchronized byte[] Take() {
+        while(this.frontier.isEmpty() && this.active > 0 && !this.finished)
+        {
+            try
+            {
+                wait();
+            }
+            catch(InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        if(this.frontier.isEmpty() || this.finished) return null;
+
+        byte[] subproblem = this.frontier.pollFirst();
+        this.running.add(subproblem);
+        ++this.active;
+        return subproblem;
+    }
+
+
+    // The count and the frontier change together, so a checkpoint never counts a subproblem and also keeps it. The
+    // solution kept is from whichever slice brings the count to the maximum, the last one it found
+    private synchronized void Finish(byte[] subproblem, long found, byte[] solved, List<byte[]> children) {
+        this.running.remove(subproblem);
+        --this.active;
+
+        this.solutions += found;
+        if(solved != null && this.solution == null && this.solutions >= this.maximumSolutions) this.solution = solved;
+        if(this.solutions >= this.maximumSolutions) this.finished = true;
+
+        // Children go to the front, so the search stays depth first and the frontier small
+        if(!children.isEmpty()) ++this.splits;
+        for(int i = children.size() - 1; i >= 0; --i) this.frontier.addFirst(children.get(i));
+        notifyAll();
+    }
+
+
+    /**
+     * Split a subproblem on its Cell with the fewest candidates after propagation.
+     *
+     * @return One child per candidate, none if the subproblem has no solution, or null if it cannot be split as every
+     * Cell is filled.
+     */
+    private List<byte[]> Split(byte[] subproblem, Board board) {
+        if(!BinaryPuzzleFormat.Decode(ByteBuffer.wrap(subproblem), board)) return List.of();
+        if(!this.propagator.Propagate(board)) return List.of();
+
+        int index = board.SelectUnfilledCell();
+        if(index < 0) return null;
+
+        List<byte[]> children = new ArrayList<>();
+        long candidates = board.getCandidates(index);
+        while(candidates != 0)
+        {
+            int number = Candidates.First(candidates);
+            candidates &= candidates - 1;
+
+            int mark = board.Mark();
+            board.Assign(index, number);
+            children.add(Encode(board));
+            board.Undo(mark);
+        }
+        return children;
+    }
+
+
+    private static byte[] Encode(Board board) {
+        byte[] record = new byte[BinaryPuzzleFormat.RecordBytes(board.getBlockRows(), board.getBlockColumns(), true)];
+        BinaryPuzzleFormat.Encode(board, ByteBuffer.wrap(record), true);
+        return record;
+    }
+
+
+    private static byte[] ReadRecord(ByteBuffer bytes) {
+        int[] header = BinaryPuzzleFormat.ReadHeader(bytes);
+        byte[] record = new byte[BinaryPuzzleFormat.RecordBytes(header[0], header[1], (header[2] & BinaryPuzzleFormat.FLAG_CHECKSUM) != 0)];
+        bytes.get(record);
+        return record;
+    }
+
+    /**
+     * Levels of the depth-first search: the Cell branched on, the numbers not yet tried, and the trail position before.
+     */
+    private static final class Stack {
+        private final int[] cells;
+        private final long[] remaining;
+        private final int[] marks;
+
+        private Stack(int capacity) {
+            this.cells = new int[capacity];
+            this.remaining = new long[capacity];
+            this.marks = new int[capacity];
+        }
+
+        private int Push(int depth, int index, Board board) {
+            this.cells[depth] = index;
+            this.remaining[depth] = board.getCandidates(index);
+            this.marks[depth] = board.Mark();
+            return depth;
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * State shared by every task of one solver run. Holds the first solution found, the number of solutions counted, and
+ * the cancellation signal that the remaining tasks check so they stop as soon as the answer is known, along with the
+ * fork policy and its counters, and the SearchMetrics each task flushes into when they are enabled.
+ */
+public class SearchContext {
+
+    private final ForkPolicy forkPolicy;
+    private final Propagator propagator;
+    private final int[] unfilledOrder;
+    private final long maximumSolutions;
+    private final Consumer<Board> listener;
+
+    private final AtomicReference<Board> solution = new AtomicReference<>();
+    private volatile boolean cancelled;
+
+    // Bounded counts claim exact slots up to the maximum, unbounded counts only need a contention-free total
+    private final AtomicLong boundedCount = new AtomicLong();
+    private final LongAdder unboundedCount = new LongAdder();
+
+    private final LongAdder tasksForked = new LongAdder();
+    private final LongAdder tasksInlined = new LongAdder();
+    private final SearchMetrics metrics = SearchMetrics.ENABLED ? new SearchMetrics() : null;
+
+
+    /**
+     * @param forkPolicy - Policy deciding when branches are forked.
+     * @param propagator - Propagation pipeline run after every assignment.
+     * @param unfilledOrder - Indices of unfilled Cells, in tie-break order for selection.
+     */
+    public SearchContext(ForkPolicy forkPolicy, Propagator propagator, int[] unfilledOrder) {
+        this(forkPolicy, propagator, unfilledOrder, 1, null);
+    }
+
+    /**
+     * @param forkPolicy - Policy deciding when branches are forked.
+     * @param propagator - Propagation pipeline run after every assignment.
+     * @param unfilledOrder - Indices of unfilled Cells, in tie-break order for selection.
+     * @param maximumSolutions - Number of solutions to stop at, Long.MAX_VALUE to count them all.
+     * @param listener - Called with each counted solution, from the worker thread that found it, or null. The Board
+     *                   is still being searched, so the listener must copy anything it keeps.
+     */
+    public SearchContext(ForkPolicy forkPolicy, Propagator propagator, int[] unfilledOrder, long maximumSolutions, Consumer<Board> listener) {
+        this.forkPolicy = forkPolicy;
+        this.propagator = propagator;
+        this.unfilledOrder = unfilledOrder;
+        this.maximumSolutions = maximumSolutions;
+        this.listener = listener;
+    }
+
+
+    public ForkPolicy getForkPolicy() {
+        return forkPolicy;
+    }
+
+    public Propagator getPropagator() {
+        return propagator;
+    }
+
+    public int[] getUnfilledOrder() {
+        return unfilledOrder;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public Optional<Board> getSolution() {
+        return Optional.ofNullable(solution.get());
+    }
+
+    /**
+     * @return Number of solutions counted, never more than the maximum.
+     */
+    public long getSolutionCount() {
+        return isBounded() ? Math.min(boundedCount.get(), maximumSolutions) : unboundedCount.sum();
+    }
+
+    public long getTasksForked() {
+        return tasksForked.sum();
+    }
+
+    public long getTasksInlined() {
+        return tasksInlined.sum();
+    }
+
+    /**
+     * @return Counters of the run, null when SearchMetrics are disabled.
+     */
+    public SearchMetrics getMetrics() {
+        return metrics;
+    }
+
+
+    /**
+     * Record a solved board. The first solution is copied and kept, and the listener is called for every solution
+     * counted. Once the maximum is reached the rest of the run is cancelled.
+     *
+     * @param board - The solved board.
+     *
+     * @return Whether the search should stop.
+     */
+    public boolean Found(Board board) {
+        long previous;
+        if(isBounded())
+        {
+            previous = boundedCount.getAndIncrement();
+            if(previous >= maximumSolutions)
+            {
+                cancelled = true;
+                return true;
+            }
+        }
+        else
+        {
+            unboundedCount.increment();
+            previous = solution.get() == null ? 0 : 1;
+        }
+
+        if(previous == 0) solution.compareAndSet(null, new Board(board));
+        if(listener != null) listener.accept(board);
+
+        if(isBounded() && previous + 1 >= maximumSolutions)
+        {
+            cancelled = true;
+            return true;
+        }
+        return false;
+    }
+
+
+    /**
+     * Signal every task of the run to stop without a solution.
+     */
+    public void Cancel() {
+        cancelled = true;
+    }
+
+
+    private boolean isBounded() {
+        return maximumSolutions != Long.MAX_VALUE;
+    }
+
+
+    public void CountForked(int tasks) {
+        tasksForked.add(tasks);
+    }
+
+    public void CountInlined() {
+        tasksInlined.increment();
+    }
+
+}
@@ -0,0 +1,227 @@
+import java.util.Locale;
+
+/**
+ * Counters describing how a search went. Counting is switched on with {@code -Dsudoku.metrics=true}; the switch is a
+ * static final, so when it is off the JIT folds every {@code if(SearchMetrics.ENABLED)} branch away and the search pays
+ * nothing for it.
+ * <p>
+ * Each search task or single-threaded solve counts into its own instance with plain fields, touched by that one thread
+ * only. When it finishes it flushes them into the counters of its run and into the process-wide total, which are the
+ * only instances updated under a lock.
+ */
+public final class SearchMetrics {
+
+    public static final boolean ENABLED = Boolean.getBoolean("sudoku.metrics");
+
+    private static final SearchMetrics TOTAL = new SearchMetrics();
+
+    private long nodes;
+    private long backtracks;
+    private long eliminations;
+    private long maxDepth;
+    private long tasksForked;
+    private long tasksInlined;
+    private long steals;
+    private long cancellations;
+    private long copies;
+    private long copyNanos;
+    private long restores;
+    private long restoreNanos;
+
+
+    /**
+     * @return Copy of the counters flushed by every search since the start of the process or the last Reset.
+     */
+    public static SearchMetrics Total() {
+        SearchMetrics total = new SearchMetrics();
+        total.Add(TOTAL);
+        return total;
+    }
+
+    public static void Reset() {
+        synchronized(TOTAL)
+        {
+            TOTAL.Zero();
+        }
+    }
+
+
+    /**
+     * Count a Grid.CopyGrid straight into the total, copies being far too slow for the lock to matter.
+     *
+     * @param nanos - Time the copy took.
+     */
+    public static void CountCopy(long nanos) {
+        synchronized(TOTAL)
+        {
+            ++TOTAL.copies;
+            TOTAL.copyNanos += nanos;
+        }
+    }
+
+    /**
+     * Count a Grid.RestoreState straight into the total. Its time includes the copy it makes.
+     *
+     * @param nanos - Time the restore took.
+     */
+    public static void CountRestore(long nanos) {
+        synchronized(TOTAL)
+        {
+            ++TOTAL.restores;
+            TOTAL.restoreNanos += nanos;
+        }
+    }
+
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return Number of branches undone on the trail, after a contradiction or once their subtree was searched.
+     */
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    /**
+     * @return Number of peer Cells whose candidates were narrowed by assignments and propagation.
+     */
+    public long getEliminations() {
+        return eliminations;
+    }
+
+    public long getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getTasksForked() {
+        return tasksForked;
+    }
+
+    public long getTasksInlined() {
+        return tasksInlined;
+    }
+
+    /**
+     * @return Number of tasks stolen by idle workers of the pool while the run was going. Pools shared with other work
+     *         count their steals too.
+     */
+    public long getSteals() {
+        return steals;
+    }
+
+    /**
+     * @return Number of tasks cancelled before they started, or that stopped on seeing the run cancelled.
+     */
+    public long getCancellations() {
+        return cancellations;
+    }
+
+    public long getCopies() {
+        return copies;
+    }
+
+    public long getCopyNanos() {
+        return copyNanos;
+    }
+
+    public long getRestores() {
+        return restores;
+    }
+
+    public long getRestoreNanos() {
+        return restoreNanos;
+    }
+
+
+    /**
+     * Count a search node.
+     *
+     * @param depth - Depth of the node in the search tree.
+     */
+    public void Node(int depth) {
+        ++nodes;
+        if(depth > maxDepth) maxDepth = depth;
+    }
+
+    public void Backtrack() {
+        ++backtracks;
+    }
+
+    public void Eliminated(int cells) {
+        eliminations += cells;
+    }
+
+    public void Cancelled() {
+        ++cancellations;
+    }
+
+    /**
+     * Record the task counts of a whole run, which the run keeps itself.
+     */
+    public void Tasks(long forked, long inlined, long stolen) {
+        tasksForked += forked;
+        tasksInlined += inlined;
+        steals += stolen;
+    }
+
+
+    /**
+     * Add these counters to those of a run and to the total, then zero them so the instance can count again.
+     *
+     * @param run - Counters of the run this search belongs to, or null if it is counted on its own.
+     */
+    public void FlushTo(SearchMetrics run) {
+        if(run != null) run.Add(this);
+        TOTAL.Add(this);
+        Zero();
+    }
+
+
+    private synchronized void Add(SearchMetrics other) {
+        synchronized(other)
+        {
+            this.nodes += other.nodes;
+            this.backtracks += other.backtracks;
+            this.eliminations += other.eliminations;
+            this.maxDepth = Math.max(this.maxDepth, other.maxDepth);
+            this.tasksForked += other.tasksForked;
+            this.tasksInlined += other.tasksInlined;
+            this.steals += other.steals;
+            this.cancellations += other.cancellations;
+            this.copies += other.copies;
+            this.copyNanos += other.copyNanos;
+            this.restores += other.restores;
+            this.restoreNanos += other.restoreNanos;
+        }
+    }
+
+    private void Zero() {
+        this.nodes = 0;
+        this.backtracks = 0;
+        this.eliminations = 0;
+        this.maxDepth = 0;
+        this.tasksForked = 0;
+        this.tasksInlined = 0;
+        this.steals = 0;
+        this.cancellations = 0;
+        this.copies = 0;
+        this.copyNanos = 0;
+        this.restores = 0;
+        this.restoreNanos = 0;
+    }
+
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT,
+                "Nodes: %d, backtracks: %d, eliminations: %d, max depth: %d%n"
+                        + "Tasks forked: %d, run inline: %d, stolen: %d, cancelled: %d%n"
+                        + "CopyGrid: %d in %.3f ms, RestoreState: %d in %.3f ms",
+                nodes, backtracks, eliminations, maxDepth,
+                tasksForked, tasksInlined, steals, cancellations,
+                copies, copyNanos / 1e6, restores, restoreNanos / 1e6);
+    }
+
+}
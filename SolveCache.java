@@ -0,0 +1,197 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Size-bounded cache of solutions in front of Solver, keyed by each puzzle's canonical form under the Sudoku
+ * symmetries. A puzzle that is a relabeled, transposed, or row and column permuted copy of one already solved is
+ * answered by mapping the cached solution back through the inverse transform, without searching. Puzzles found to have
+ * no solution are cached too.
+ * <p>
+ * The least recently used entry is evicted once the cache is full. Lookups are safe from any number of threads; two
+ * threads missing on the same puzzle at once both solve it.
+ */
+public class SolveCache {
+
+    private static final byte[] NO_SOLUTION = new byte[0];
+
+    private final int capacity;
+    private final Map<Key, byte[]> entries;
+    private final ThreadLocal<Map<Long, SymmetryCanonicalizer>> canonicalizers = ThreadLocal.withInitial(LinkedHashMap::new);
+    private Function<Grid, Solver> solvers = Solver::new;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+
+    /**
+     * @param capacity - Number of puzzles kept before the least recently used is evicted.
+     */
+    public SolveCache(int capacity) {
+        if(capacity < 1) throw new IllegalArgumentException("Capacity " + capacity + " below 1");
+        this.capacity = capacity;
+
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest) {
+                if(size() <= SolveCache.this.capacity) return false;
+
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return Fraction of lookups answered from the cache, 0 before any lookup.
+     */
+    public double getHitRate() {
+        long lookups = getHits() + getMisses();
+        return lookups == 0 ? 0 : (double) getHits() / lookups;
+    }
+
+    /**
+     * @param solvers - Creates the Solver used on a miss, e.g. one with a portfolio or its own pool.
+     */
+    public void setSolvers(Function<Grid, Solver> solvers) {
+        this.solvers = solvers;
+    }
+
+
+    /**
+     * Solve a grid from its given Cells, from the cache if an equivalent puzzle has been solved before.
+     *
+     * @param grid - Grid to solve. It is not changed.
+     *
+     * @return A solved copy of the grid, or empty if it has no solution.
+     */
+    public Optional<Grid> Solve(Grid grid) {
+        Board board = grid.ToBoard();
+
+        // The symmetries are those of the standard layout, other layouts are solved without the cache
+        if(!board.getLayout().isStandard()) return this.solvers.apply(grid).solve();
+
+        SymmetryCanonicalizer canonicalizer = Canonicalizer(board);
+        Key key = new Key(board.getBlockRows(), board.getBlockColumns(), canonicalizer.Canonicalize(board).clone());
+
+        byte[] cached;
+        synchronized(this)
+        {
+            cached = this.entries.get(key);
+        }
+
+        if(cached != null)
+        {
+            hits.increment();
+            if(cached == NO_SOLUTION) return Optional.empty();
+
+            canonicalizer.FromCanonical(cached, board);
+            Grid solution = new Grid(grid);
+            solution.LoadBoard(board);
+            return Optional.of(solution);
+        }
+
+        misses.increment();
+        Solver solver = this.solvers.apply(grid);
+        Optional<Grid> solution = solver.solve();
+
+        // A portfolio that ran out of budget has not shown there is no solution
+        if(solution.isEmpty() && solver.getPortfolio() != null && solver.getPortfolioWinner().isEmpty()) return solution;
+
+        byte[] value = NO_SOLUTION;
+        if(solution.isPresent())
+        {
+            value = new byte[board.getCellCount()];
+            canonicalizer.ToCanonical(SolvedBoard(solution.get(), board), value);
+        }
+        synchronized(this)
+        {
+            this.entries.put(key, value);
+        }
+        return solution;
+    }
+
+
+    public synchronized void Clear() {
+        this.entries.clear();
+    }
+
+
+    /**
+     * @return Summary of the cache statistics.
+     */
+    public String Report() {
+        return String.format("%d hits, %d misses (%.1f%% hit rate), %d evictions, %d of %d entries",
+                getHits(), getMisses(), 100 * getHitRate(), getEvictions(), getSize(), capacity);
+    }
+
+
+    // Grid.ToBoard only loads the given Cells, the solution is in every Cell
+    private static Board SolvedBoard(Grid solution, Board board) {
+        int index = 0;
+        for(Cell[] cellsRow : solution.getCellsGrid())
+        {
+            for(Cell cell : cellsRow) board.Load(index++, cell.getSolution(), 0);
+        }
+        return board;
+    }
+
+
+    // One canonicalizer per shape per thread, so their work arrays are reused across lookups
+    private SymmetryCanonicalizer Canonicalizer(Board board) {
+        long shape = (long) board.getBlockRows() << 32 | board.getBlockColumns();
+        return this.canonicalizers.get().computeIfAbsent(shape, s -> new SymmetryCanonicalizer(board.getBlockRows(), board.getBlockColumns()));
+    }
+
+
+    private static final class Key {
+        private final int blockRows;
+        private final int blockColumns;
+        private final byte[] cells;
+        private final int hash;
+
+        private Key(int blockRows, int blockColumns, byte[] cells) {
+            this.blockRows = blockRows;
+            this.blockColumns = blockColumns;
+            this.cells = cells;
+            this.hash = 31 * (31 * blockRows + blockColumns) + Arrays.hashCode(cells);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && key.hash == this.hash && key.blockRows == this.blockRows
+                    && key.blockColumns == this.blockColumns && Arrays.equals(key.cells, this.cells);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+}
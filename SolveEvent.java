@@ -0,0 +1,103 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event covering one solve, from the single-threaded BoardSolver or a parallel Solver run. Record with
+ * {@code java -XX:StartFlightRecording=filename=solve.jfr ...} and read with {@code jfr print --events sudoku.Solve}.
+ * The search counters are filled in only when SearchMetrics are enabled, and are 0 otherwise.
+ */
+@Name("sudoku.Solve")
+@Label("Solve")
+@Category("Sudoku")
+@Description("One search of a puzzle")
+public class SolveEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(SolveEvent.class);
+
+    @Label("Engine")
+    String engine;
+
+    @Label("Size")
+    int size;
+
+    @Label("Maximum Solutions")
+    long maximumSolutions;
+
+    @Label("Solutions")
+    long solutions;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Backtracks")
+    long backtracks;
+
+    @Label("Eliminations")
+    long eliminations;
+
+    @Label("Max Depth")
+    long maxDepth;
+
+    @Label("Tasks Forked")
+    long tasksForked;
+
+    @Label("Tasks Inlined")
+    long tasksInlined;
+
+    @Label("Steals")
+    long steals;
+
+    @Label("Cancellations")
+    long cancellations;
+
+
+    /**
+     * Start timing a solve. The event lives across the whole search, where the JIT cannot remove it, so it is only
+     * created while solves are being recorded.
+     *
+     * @return The started event, or null if solves are not being recorded.
+     */
+    public static SolveEvent Begin() {
+        if(!TYPE.isEnabled()) return null;
+
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        return event;
+    }
+
+
+    /**
+     * Fill in the outcome of the solve and commit it.
+     *
+     * @param engine - Name of the engine that searched.
+     * @param size - Size of the grid.
+     * @param maximumSolutions - Number of solutions the solve stopped at.
+     * @param solutions - Number of solutions found.
+     * @param metrics - Counters of the solve, or null when they are disabled.
+     */
+    public void End(String engine, int size, long maximumSolutions, long solutions, SearchMetrics metrics) {
+        if(!shouldCommit()) return;
+
+        this.engine = engine;
+        this.size = size;
+        this.maximumSolutions = maximumSolutions;
+        this.solutions = solutions;
+        if(metrics != null)
+        {
+            this.nodes = metrics.getNodes();
+            this.backtracks = metrics.getBacktracks();
+            this.eliminations = metrics.getEliminations();
+            this.maxDepth = metrics.getMaxDepth();
+            this.tasksForked = metrics.getTasksForked();
+            this.tasksInlined = metrics.getTasksInlined();
+            this.steals = metrics.getSteals();
+            this.cancellations = metrics.getCancellations();
+        }
+        commit();
+    }
+
+}
@@ -4,76 +4,156 @@ import java.util.concurrent.RecursiveTask;
 public class SolveGrid extends RecursiveTask<Boolean> {
 
     private String threadId;
-    private Grid grid;
-    private Integer chosenNumber;
-    private LinkedList<Integer> remainingIndexs;
-    private Object found;
-
-    public SolveGrid(String threadId, Grid grid, Integer chosenNumber, LinkedList<Integer> remainingIndexs, Object found) {
+    private Board board;
+    private int chosenIndex;
+    private int chosenNumber;
+    private int depth;
+    private final SearchContext context;
+    private SearchMetrics metrics;
+
+    /**
+     * @param threadId - Name of the task, for debugging.
+     * @param board - Board owned by this task, searched in place.
+     * @param chosenIndex - Index of the Cell to assign first, or -1 to start from the board as it is.
+     * @param chosenNumber - Number to assign to the chosen Cell.
+     * @param depth - Depth of the task in the search tree.
+     * @param context - State shared by all tasks of the run.
+     */
+    public SolveGrid(String threadId, Board board, int chosenIndex, int chosenNumber, int depth, SearchContext context) {
         this.threadId = threadId;
 
-        this.grid = grid;
+        this.board = board;
+        this.chosenIndex = chosenIndex;
         this.chosenNumber =  chosenNumber;
-        this.remainingIndexs = remainingIndexs;
+        this.depth = depth;
 
-        this.found = found;
+        this.context = context;
     }
 
 
     @Override
     public Boolean compute() {
-        // System.out.println(this.threadId);
+        if(!SearchMetrics.ENABLED) return Run();
+
+        // Counted per task so the hot path never shares a cache line, and flushed into the run once the task is done
+        this.metrics = new SearchMetrics();
+        try
+        {
+            return Run();
+        }
+        finally
+        {
+            this.metrics.FlushTo(this.context.getMetrics());
+        }
+    }
 
-        if(this.remainingIndexs.isEmpty() || this.found == null) {
-            this.found = null;
 
-            System.out.println("SOLUTION FOUND" + this.threadId + "\n" + this.grid.PrintBlockGrid() + "\n");
-            return true;
+    private boolean Run() {
+        // Another task has already found a solution or the run was cancelled
+        if(this.context.isCancelled())
+        {
+            if(SearchMetrics.ENABLED) this.metrics.Cancelled();
+            return false;
         }
 
+        int mark = this.board.Mark();
+        boolean consistent = (this.chosenIndex < 0 || this.board.Assign(this.chosenIndex, this.chosenNumber))
+                && this.context.getPropagator().Propagate(this.board);
+        if(SearchMetrics.ENABLED) this.metrics.Eliminated(this.board.Mark() - mark - (this.chosenIndex < 0 ? 0 : 1));
+        if(!consistent) return false;
+
+        return Search(this.depth);
+    }
+
 
-        int[] coords = this.grid.ConvertToCoords(this.remainingIndexs.getFirst());
-        Cell cell = this.grid.getCellsGrid()[coords[0]][coords[1]];
-        this.grid.RemovePossibleNumbers(cell, this.chosenNumber);
+    /**
+     * Search the board from the current node, forking the branches as new tasks when the fork policy allows it and
+     * otherwise trying them in place, propagating after each assignment and undoing each through the board's trail.
+     *
+     * @param nodeDepth - Depth of the current node in the search tree.
+     *
+     * @return Whether the search should stop, i.e. enough solutions were found or the run was cancelled.
+     */
+    private boolean Search(int nodeDepth) {
+        if(this.context.isCancelled()) return false;
+        if(SearchMetrics.ENABLED) this.metrics.Node(nodeDepth);
 
-        this.remainingIndexs.removeFirst();
-        if(this.remainingIndexs.isEmpty()) {
-            this.found = null;
+        int index = this.board.SelectUnfilledCell(this.context.getUnfilledOrder());
+        if(index < 0) return this.context.Found(this.board);
 
-            System.out.println("SOLUTION FOUND " + this.threadId + "\n" + this.grid.PrintBlockGrid() + "\n");
-            return true;
+        if(this.context.getForkPolicy().ShouldFork(nodeDepth)) return ForkBranches(index, nodeDepth);
+
+
+        int mark = this.board.Mark();
+        for(long possible = this.board.getCandidates(index); possible != 0; possible &= possible - 1)
+        {
+            this.context.CountInlined();
+            boolean consistent = this.board.Assign(index, Candidates.First(possible))
+                    && this.context.getPropagator().Propagate(this.board);
+            if(SearchMetrics.ENABLED) this.metrics.Eliminated(this.board.Mark() - mark - 1);
+            if(consistent && Search(nodeDepth + 1)) return true;
+
+            this.board.Undo(mark);
+            if(SearchMetrics.ENABLED) this.metrics.Backtrack();
+            if(this.context.isCancelled()) return false;
         }
 
+        return false;
+    }
 
-        LinkedList<SolveGrid> possibleSolutions = GetPossibleSolutions();
+
+    private boolean ForkBranches(int index, int nodeDepth) {
+        LinkedList<SolveGrid> possibleSolutions = GetPossibleSolutions(index, nodeDepth);
         if(possibleSolutions.isEmpty()) return false;
 
         SolveGrid hold = possibleSolutions.getFirst();
         possibleSolutions.removeFirst();
 
+        this.context.CountForked(possibleSolutions.size());
+        this.context.CountInlined();
+
         for (SolveGrid sg :possibleSolutions) sg.fork();
-        if(hold.compute()) return true;
-        for (SolveGrid sg :possibleSolutions) if(sg.join()) return true;
+        if(hold.compute()) return CancelAll(possibleSolutions);
+        for (SolveGrid sg :possibleSolutions)
+        {
+            if(this.context.isCancelled()) return CancelAll(possibleSolutions);
 
+            sg.quietlyJoin();
+            if(Boolean.TRUE.equals(sg.getRawResult())) return CancelAll(possibleSolutions);
+        }
 
         return false;
     }
 
 
-    public LinkedList<SolveGrid> GetPossibleSolutions() {
+    public LinkedList<SolveGrid> GetPossibleSolutions(int index, int nodeDepth) {
         LinkedList<SolveGrid> possibleSolutions = new LinkedList<>();
 
-        int[] coords = this.grid.ConvertToCoords(this.remainingIndexs.getFirst());
-        Cell cell = this.grid.getCellsGrid()[coords[0]][coords[1]];
-
-
         int threadCount = 0;
-        for(Integer chosenNumber : new LinkedList<>(cell.getPossibleNumbers()))
+        for(long possible = this.board.getCandidates(index); possible != 0; possible &= possible - 1)
         {
-            SolveGrid sg = new SolveGrid(this.threadId + " " + ++threadCount, new Grid(this.grid), chosenNumber, new LinkedList<>(this.remainingIndexs), this.found);
+            int chosenNumber = Candidates.First(possible);
+            SolveGrid sg = new SolveGrid(this.threadId + " " + ++threadCount, new Board(this.board), index, chosenNumber, nodeDepth + 1, this.context);
             possibleSolutions.add(sg);
         }
 
         return possibleSolutions;
     }
+
+
+    /**
+     * Cancel forked sibling tasks that have not started yet, those already running stop on their next check of the
+     * shared context.
+     *
+     * @param possibleSolutions - Forked sibling tasks.
+     *
+     * @return True, the search should stop.
+     */
+    private boolean CancelAll(LinkedList<SolveGrid> possibleSolutions) {
+        for (SolveGrid sg : possibleSolutions)
+        {
+            if(sg.cancel(false) && SearchMetrics.ENABLED) this.metrics.Cancelled();
+        }
+        return true;
+    }
 }
@@ -0,0 +1,413 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Embedded solve service on the loopback interface, so a warm JVM can be shared by any number of clients.
+ * <p>
+ * {@code POST /solve} takes one or more puzzle lines in the PuzzleFormat and answers with one line per puzzle in the
+ * same order, as BatchSolver writes them. {@code GET /stats} answers with the Report.
+ * <p>
+ * Requests are handled on virtual threads, which only parse, queue and wait. Their puzzles go on one shared queue that a
+ * fixed pool of solver threads drains several at a time, so concurrent single-puzzle requests are coalesced into
+ * batches. The queue is bounded: a request whose puzzles do not fit is refused with 503 rather than queued, so latency
+ * stays bounded when the service is saturated.
+ */
+public class SolveServer {
+
+    /**
+     * Longest line accepted in a request, that of a puzzle of the largest size.
+     */
+    public static final int MAXIMUM_LINE_LENGTH = Candidates.MAXIMUM_SIZE * Candidates.MAXIMUM_SIZE;
+
+    private final BoardSolver boardSolver;
+    private final int threads;
+    private final int queueCapacity;
+    private final int batchSize;
+
+    private final BlockingQueue<Job> queue = new LinkedBlockingQueue<>();
+    private final Semaphore admissions;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder puzzles = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    private HttpServer server;
+    private ExecutorService handlers;
+    private List<Thread> workers;
+    private long startNanos;
+
+
+    /**
+     * @param boardSolver - Engine and propagation used for each puzzle.
+     * @param threads - Number of solver threads.
+     * @param queueCapacity - Number of puzzles queued or being solved before requests are refused.
+     * @param batchSize - Most puzzles a solver thread takes from the queue at once.
+     */
+    public SolveServer(BoardSolver boardSolver, int threads, int queueCapacity, int batchSize) {
+        if(threads < 1) throw new IllegalArgumentException("Threads " + threads + " below 1");
+        if(queueCapacity < 1) throw new IllegalArgumentException("Queue capacity " + queueCapacity + " below 1");
+        if(batchSize < 1) throw new IllegalArgumentException("Batch size " + batchSize + " below 1");
+
+        this.boardSolver = boardSolver;
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.admissions = new Semaphore(queueCapacity);
+    }
+
+    public SolveServer() {
+        this(new BoardSolver(Propagator.Default(), SolverEngine.BACKTRACKING), Runtime.getRuntime().availableProcessors(), 4096, 64);
+    }
+
+
+    /**
+     * @return The port the server listens on, useful after starting on port 0.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getPuzzles() {
+        return puzzles.sum();
+    }
+
+    /**
+     * @return Mean number of puzzles a solver thread took from the queue at once.
+     */
+    public double getAverageBatch() {
+        long taken = batches.sum();
+        return taken == 0 ? 0 : (double) getPuzzles() / taken;
+    }
+
+    public double getPuzzlesPerSecond() {
+        long elapsed = System.nanoTime() - this.startNanos;
+        return elapsed <= 0 ? 0 : getPuzzles() * 1e9 / elapsed;
+    }
+
+    /**
+     * @param percentile - Percentile between 0 and 100.
+     *
+     * @return Request latency at that percentile in microseconds, from arrival to the response being ready.
+     */
+    public long getLatencyMicros(double percentile) {
+        return latencies.Percentile(percentile);
+    }
+
+
+    /**
+     * Start listening on the loopback interface.
+     *
+     * @param port - Port to listen on, or 0 for any free port.
+     *
+     * @throws IOException If the port cannot be bound.
+     */
+    public void Start(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.handlers = Executors.newVirtualThreadPerTaskExecutor();
+        this.server.setExecutor(this.handlers);
+        this.server.createContext("/solve", this::HandleSolve);
+        this.server.createContext("/stats", this::HandleStats);
+
+        this.workers = new ArrayList<>();
+        for(int i = 0; i < this.threads; ++i)
+        {
+            Thread worker = Thread.ofPlatform().name("solve-worker-" + i).daemon().start(this::Work);
+            this.workers.add(worker);
+        }
+
+        this.startNanos = System.nanoTime();
+        this.server.start();
+    }
+
+
+    /**
+     * Stop accepting requests, wait up to the delay for open exchanges to finish, then stop the solver threads.
+     *
+     * @param delaySeconds - Longest wait for open exchanges.
+     */
+    public void Stop(int delaySeconds) {
+        this.server.stop(delaySeconds);
+        this.handlers.close();
+        for(Thread worker : this.workers) worker.interrupt();
+    }
+
+
+    /**
+     * @return Summary of the traffic so far, including the latency percentiles and throughput.
+     */
+    public String Report() {
+        return String.format("%d requests (%d rejected), %d puzzles in batches of %.1f, %.0f puzzles/sec, latency p50 %d us, p99 %d us, %d queued",
+                getRequests(), getRejected(), getPuzzles(), getAverageBatch(), getPuzzlesPerSecond(),
+                getLatencyMicros(50), getLatencyMicros(99), this.queueCapacity - this.admissions.availablePermits());
+    }
+
+
+    private void HandleSolve(HttpExchange exchange) throws IOException {
+        long arrival = System.nanoTime();
+        try(exchange)
+        {
+            if(!exchange.getRequestMethod().equals("POST"))
+            {
+                Respond(exchange, 405, "Use POST");
+                return;
+            }
+            this.requests.increment();
+
+            // Reading stops at the first line past either limit, so an oversized body is never held in memory
+            List<String> lines = ReadLines(exchange, this.queueCapacity);
+            if(lines == null)
+            {
+                Respond(exchange, 413, "At most " + this.queueCapacity + " puzzles of at most " + MAXIMUM_LINE_LENGTH + " characters per request");
+                return;
+            }
+
+            // Refuse at once rather than queue behind work that will not finish soon
+            if(!this.admissions.tryAcquire(lines.size()))
+            {
+                this.rejected.increment();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                Respond(exchange, 503, "Busy");
+                return;
+            }
+
+            Request request = new Request(lines.size());
+            for(int i = 0; i < lines.size(); ++i) this.queue.add(new Job(lines.get(i), request, i));
+            request.done.await();
+
+            StringBuilder response = new StringBuilder();
+            for(String result : request.results) response.append(result).append('\n');
+
+            this.latencies.Record((System.nanoTime() - arrival) / 1000);
+            Respond(exchange, 200, response.toString());
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    private void HandleStats(HttpExchange exchange) throws IOException {
+        try(exchange)
+        {
+            Respond(exchange, 200, Report() + "\n");
+        }
+    }
+
+
+    // Each solver thread blocks for one job, then takes whatever else is already queued up to the batch size
+    private void Work() {
+        Board[] boards = new Board[Candidates.MAXIMUM_SIZE + 1];
+        List<Job> batch = new ArrayList<>(this.batchSize);
+
+        try
+        {
+            while(true)
+            {
+                batch.add(this.queue.take());
+                this.queue.drainTo(batch, this.batchSize - 1);
+                this.batches.increment();
+
+                try
+                {
+                    for(Job job : batch)
+                    {
+                        // A puzzle that breaks the solver fails on its own rather than ending the thread, and the boards
+                        // are replaced in case one was left mid-search
+                        String result;
+                        try
+                        {
+                            result = Solve(job.line, boards);
+                        }
+                        catch(RuntimeException e)
+                        {
+                            boards = new Board[Candidates.MAXIMUM_SIZE + 1];
+                            result = BatchSolver.INVALID;
+                        }
+                        job.request.Complete(job.position, result);
+                    }
+                }
+                finally
+                {
+                    this.admissions.release(batch.size());
+                    this.puzzles.add(batch.size());
+                    batch.clear();
+                }
+            }
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    private String Solve(String line, Board[] boards) {
+        int size = PuzzleFormat.SizeForLength(line.length());
+        if(size < 0) return BatchSolver.INVALID;
+
+        if(boards[size] == null)
+        {
+            int blockRows = PuzzleFormat.BlockRowsForSize(size);
+            boards[size] = new Board(blockRows, size / blockRows);
+        }
+        Board board = boards[size];
+
+        try
+        {
+            if(!PuzzleFormat.Decode(line, board)) return BatchSolver.NO_SOLUTION;
+        }
+        catch(IllegalArgumentException e)
+        {
+            return BatchSolver.INVALID;
+        }
+        return this.boardSolver.Solve(board, null, 1) < 1 ? BatchSolver.NO_SOLUTION : PuzzleFormat.Encode(board);
+    }
+
+
+    /**
+     * Read the non-blank, non-comment lines of a request body, giving up as soon as there are too many or one is too
+     * long.
+     *
+     * @param maximumLines - Most lines accepted.
+     *
+     * @return The stripped lines, or null if the body holds more lines or a longer line than accepted.
+     */
+    private static List<String> ReadLines(HttpExchange exchange, int maximumLines) throws IOException {
+        List<String> lines = new ArrayList<>();
+        BufferedReader input = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.US_ASCII));
+        StringBuilder line = new StringBuilder();
+
+        for(int c = input.read(); ; c = input.read())
+        {
+            if(c != '\n' && c != '\r' && c >= 0)
+            {
+                if(line.length() == MAXIMUM_LINE_LENGTH) return null;
+                line.append((char) c);
+                continue;
+            }
+
+            String stripped = line.toString().strip();
+            line.setLength(0);
+            if(!stripped.isEmpty() && !stripped.startsWith("#"))
+            {
+                if(lines.size() == maximumLines) return null;
+                lines.add(stripped);
+            }
+            if(c < 0) return lines;
+        }
+    }
+
+
+    private static void Respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.US_ASCII);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=us-ascii");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try(OutputStream output = exchange.getResponseBody())
+        {
+            output.write(bytes);
+        }
+    }
+
+
+    /**
+     * One puzzle line of a request, and where its result goes.
+     */
+    private record Job(String line, Request request, int position) {
+    }
+
+
+    /**
+     * Results of one request's puzzles, released once the last is solved.
+     */
+    private static final class Request {
+        private final String[] results;
+        private final AtomicInteger remaining;
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private Request(int count) {
+            this.results = new String[count];
+            this.remaining = new AtomicInteger(count);
+            if(count == 0) this.done.countDown();
+        }
+
+        private void Complete(int position, String result) {
+            this.results[position] = result;
+            if(this.remaining.decrementAndGet() == 0) this.done.countDown();
+        }
+    }
+
+
+    /**
+     * Lock-free histogram of latencies in microseconds, with 8 buckets per power of two so a percentile is within 12.5%
+     * of the true value.
+     */
+    private static final class LatencyHistogram {
+        private static final int SUB_BUCKETS = 8;
+        private final AtomicLongArray counts = new AtomicLongArray(SUB_BUCKETS * 64);
+
+        private void Record(long micros) {
+            this.counts.incrementAndGet(Bucket(Math.max(0, micros)));
+        }
+
+        private long Percentile(double percentile) {
+            long total = 0;
+            for(int i = 0; i < this.counts.length(); ++i) total += this.counts.get(i);
+            if(total == 0) return 0;
+
+            long rank = (long) Math.ceil(percentile / 100 * total);
+            long seen = 0;
+            for(int i = 0; i < this.counts.length(); ++i)
+            {
+                seen += this.counts.get(i);
+                if(seen >= Math.max(1, rank)) return UpperBound(i);
+            }
+            return UpperBound(this.counts.length() - 1);
+        }
+
+        // Values below 8 get a bucket each, above that the top 3 bits below the leading one pick the sub-bucket
+        private static int Bucket(long value) {
+            if(value < SUB_BUCKETS) return (int) value;
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+            return (exponent - 2) * SUB_BUCKETS + sub;
+        }
+
+        private static long UpperBound(int bucket) {
+            if(bucket < SUB_BUCKETS) return bucket;
+            int exponent = bucket / SUB_BUCKETS + 2;
+            int sub = bucket % SUB_BUCKETS;
+            return ((long) (SUB_BUCKETS + sub + 1) << (exponent - 3)) - 1;
+        }
+    }
+
+}
@@ -0,0 +1,280 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stateful view of a puzzle being played, for answering questions after every move without rebuilding a Grid. The
+ * givens are loaded once into a Board, and each placement is applied with Board.Assign and taken back through the
+ * board's trail, so candidates are maintained incrementally.
+ * <p>
+ * Answers are reused while they still hold: a solution found earlier keeps proving the puzzle solvable, and unique,
+ * for as long as every placement agrees with it, and retracting a placement never makes a solvable puzzle unsolvable.
+ * A session is not thread-safe.
+ */
+public class SolveSession {
+
+    private final Grid grid;
+    private final Board board;
+    private final BoardSolver solver;
+
+    // Placements in the order they were made as {index, number, 1 if it conflicted}, with the trail position before each
+    private final List<int[]> moves = new ArrayList<>();
+    private final List<Integer> marks = new ArrayList<>();
+    private int conflicts;
+
+    private byte[] solution;
+    private boolean unique;
+
+
+    /**
+     * @param grid - Grid holding the givens. Its propagator and engine are used for hints and searches; it is not
+     * changed.
+     */
+    public SolveSession(Grid grid) {
+        this.grid = new Grid(grid);
+        this.board = grid.ToBoard();
+        this.solver = new BoardSolver(grid.getPropagator(), grid.getEngine());
+
+        // Givens are checked once, a contradiction among them counts as a conflict no move can undo
+        if(!new GridValidator().Validate(this.board)) ++this.conflicts;
+    }
+
+
+    /**
+     * @return The current state, every placement and the candidates left.
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    public int getMoveCount() {
+        return moves.size();
+    }
+
+
+    /**
+     * Place a number, replacing any earlier placement in the same Cell.
+     *
+     * @param index - Index of an unfilled, non-given Cell.
+     * @param number - Number to place.
+     *
+     * @return False if the placement contradicts the Cells around it, true otherwise. The placement is made either way.
+     */
+    public boolean Place(int index, int number) {
+        if(this.board.isFilled(index) && Find(index) < 0) throw new IllegalArgumentException("Cell " + index + " is given");
+        if(Find(index) >= 0) Retract(index);
+
+        boolean consistent = Apply(index, number);
+
+        // A solution that disagrees no longer proves anything, one that agrees still does
+        if(this.solution != null && this.solution[index] != number)
+        {
+            this.solution = null;
+            this.unique = false;
+        }
+        return consistent;
+    }
+
+
+    /**
+     * Take back the placement in a Cell. Later placements are undone with it and replayed.
+     *
+     * @param index - Index of a Cell placed in this session.
+     *
+     * @return False if no placement was made in the Cell, true otherwise.
+     */
+    public boolean Retract(int index) {
+        int move = Find(index);
+        if(move < 0) return false;
+
+        // Earlier placements are unaffected, later ones may conflict differently without this one
+        List<int[]> replayed = new ArrayList<>(this.moves.subList(move + 1, this.moves.size()));
+        for(int[] undone : this.moves.subList(move, this.moves.size())) this.conflicts -= undone[2];
+
+        this.board.Undo(this.marks.get(move));
+        this.moves.subList(move, this.moves.size()).clear();
+        this.marks.subList(move, this.marks.size()).clear();
+        for(int[] replay : replayed) Apply(replay[0], replay[1]);
+
+        // Fewer placements keep the puzzle solvable but may allow more solutions
+        this.unique = false;
+        return true;
+    }
+
+
+    /**
+     * Take back the most recent placement.
+     *
+     * @return False if there was none, true otherwise.
+     */
+    public boolean Undo() {
+        return !this.moves.isEmpty() && Retract(this.moves.get(this.moves.size() - 1)[0]);
+    }
+
+
+    /**
+     * @return Whether the givens and placements so far can still be completed to a solution.
+     */
+    public boolean IsSolvable() {
+        if(this.conflicts > 0) return false;
+        if(this.solution != null) return true;
+
+        // Searched on a copy, as engines other than backtracking write their solution off the trail
+        Board searched = new Board(this.board);
+        if(this.solver.Solve(searched, null, 1) > 0)
+        {
+            this.solution = new byte[searched.getCellCount()];
+            for(int index = 0; index < this.solution.length; ++index) this.solution[index] = (byte) searched.getValue(index);
+        }
+        return this.solution != null;
+    }
+
+
+    /**
+     * @return Whether the givens and placements so far have exactly one solution.
+     */
+    public boolean IsUnique() {
+        if(this.unique) return true;
+        if(!IsSolvable()) return false;
+
+        this.unique = this.solver.Solve(new Board(this.board), null, 2) == 1;
+        return this.unique;
+    }
+
+
+    /**
+     * Find the next number a player could place by logic, trying naked singles, then hidden singles, then anything the
+     * propagation pipeline deduces. Without a logical step, the number from a solution at the Cell with the fewest
+     * candidates is given instead.
+     *
+     * @return The hint, or null if every Cell is filled or the puzzle is no longer solvable.
+     */
+    public Hint NextHint() {
+        if(this.conflicts > 0) return null;
+
+        Hint hint = FindSingle();
+        if(hint != null) return hint;
+
+        // The pipeline usually fills the Cells it narrows to one number itself, so look for Cells it filled as well
+        boolean[] filled = new boolean[this.board.getCellCount()];
+        for(int index = 0; index < filled.length; ++index) filled[index] = this.board.isFilled(index);
+
+        int mark = this.board.Mark();
+        Hint deduced = null;
+        if(this.solver.getPropagator().Propagate(this.board))
+        {
+            for(int index = 0; index < filled.length && deduced == null; ++index)
+            {
+                if(filled[index]) continue;
+
+                int number = this.board.isFilled(index) ? this.board.getValue(index) : Candidates.Single(this.board.getCandidates(index));
+                if(number >= 0) deduced = new Hint(index, number, "Propagation");
+            }
+        }
+        this.board.Undo(mark);
+        if(deduced != null) return deduced;
+
+        int index = this.board.SelectUnfilledCell();
+        if(index < 0 || !IsSolvable()) return null;
+        return new Hint(index, this.solution[index], "Search");
+    }
+
+
+    /**
+     * @return A copy of the original grid holding the current placements and candidates.
+     */
+    public Grid ToGrid() {
+        Grid current = new Grid(this.grid);
+        current.LoadBoard(this.board);
+        return current;
+    }
+
+
+    private boolean Apply(int index, int number) {
+        this.marks.add(this.board.Mark());
+
+        boolean consistent = Candidates.Contains(this.board.getCandidates(index), number);
+        consistent &= this.board.Assign(index, number);
+        if(!consistent) ++this.conflicts;
+
+        this.moves.add(new int[] {index, number, consistent ? 0 : 1});
+        return consistent;
+    }
+
+
+    private Hint FindSingle() {
+        for(int index = 0; index < this.board.getCellCount(); ++index)
+        {
+            if(this.board.isFilled(index)) continue;
+
+            long candidates = this.board.getCandidates(index);
+            if(candidates == 0) return null;
+            if(Candidates.Single(candidates) >= 0) return new Hint(index, Candidates.First(candidates), "NakedSingles");
+        }
+
+        for(int[] house : this.board.getHouses())
+        {
+            long once = 0;
+            long twice = 0;
+            for(int index : house)
+            {
+                long candidates = this.board.getCandidates(index);
+                twice |= once & candidates;
+                once |= candidates;
+            }
+
+            long single = once & ~twice;
+            if(single == 0) continue;
+
+            int number = Candidates.First(single);
+            for(int index : house)
+            {
+                if(Candidates.Contains(this.board.getCandidates(index), number)) return new Hint(index, number, "HiddenSingles");
+            }
+        }
+        return null;
+    }
+
+
+    private int Find(int index) {
+        for(int move = 0; move < this.moves.size(); ++move) if(this.moves.get(move)[0] == index) return move;
+        return -1;
+    }
+
+
+    /**
+     * A number to place in a Cell and the rule that finds it.
+     */
+    public static class Hint {
+
+        private final int index;
+        private final int number;
+        private final String reason;
+
+        private Hint(int index, int number, String reason) {
+            this.index = index;
+            this.number = number;
+            this.reason = reason;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        /**
+         * @return Name of the rule that finds the number, e.g. "HiddenSingles", or "Search" if only a search does.
+         */
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return reason + ": " + (number + 1) + " at index " + index;
+        }
+    }
+
+}
@@ -1,33 +1,56 @@
 import java.util.LinkedList;
-import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
 
 public class Solver {
 
     private Grid grid;
+    private ForkPolicy forkPolicy;
+    private Propagator propagator;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private SearchContext lastContext;
+    private Portfolio portfolio;
+    private Portfolio.Outcome lastOutcome;
 
     public Solver(Grid grid) {
-        this.grid = grid;
+        this(grid, ForkPolicy.Adaptive());
     }
 
-    public void solve() {
-
-        LinkedList<Integer> unfilledIndexs = this.grid.CreateUnfilledIndexsList();
-        int[] coords = this.grid.ConvertToCoords(unfilledIndexs.getFirst());
-        Cell cell = this.grid.getCellsGrid()[coords[0]][coords[1]];
+    public Solver(Grid grid, ForkPolicy forkPolicy) {
+        this.grid = grid;
+        this.forkPolicy = forkPolicy;
+        this.propagator = grid.getPropagator();
+    }
 
-        LinkedList<SolveGrid> possibleSolutions = new LinkedList<>();
+    /**
+     * Solve the grid across the Solver's ForkJoinPool, the common pool unless set otherwise. Once any task finds a
+     * solution, all other tasks are cancelled. If the grid is set to the Dancing Links engine, it is solved in a single
+     * search instead. If it is set to conflict learning, one search per pool thread is raced, each in its own order,
+     * sharing their short nogoods. If a portfolio is set, its strategies are raced instead and the first to finish
+     * decides.
+     *
+     * @return The solved grid, or empty if the grid has no solution or the portfolio ran out of CPU budget.
+     */
+    public Optional<Grid> solve() {
+
+        if(this.portfolio != null) return SolvePortfolio(this.portfolio);
+
+        // Conflict learning workers share nogoods through their race rather than splitting the tree between tasks
+        if(this.grid.getEngine() == SolverEngine.CONFLICT_LEARNING)
+        {
+            return SolvePortfolio(new Portfolio(PortfolioStrategy.ConflictLearning(this.propagator, this.pool.getParallelism())));
+        }
 
-        Object found = new Object();
-        int threadCount = 0;
-        for(Integer chosenNumber : new LinkedList<>(cell.getPossibleNumbers()))
+        // Dancing Links runs as a single exact-cover search rather than forked tasks
+        if(this.grid.getEngine() == SolverEngine.DANCING_LINKS)
         {
-            possibleSolutions.add(new SolveGrid(++threadCount + " ", new Grid(this.grid), chosenNumber, new LinkedList<>(unfilledIndexs), found));
+            Grid solution = new Grid(this.grid);
+            solution.setPropagator(this.propagator);
+            return solution.SolveGrid(solution.CreateUnfilledIndexsList(), 1) > 0 ? Optional.of(solution) : Optional.empty();
         }
 
-        for (SolveGrid sg : possibleSolutions) sg.fork();
-        for (SolveGrid sg : possibleSolutions) sg.join();
+        SearchContext context = Run(1, null);
 
 
         /*
@@ -35,7 +58,163 @@ public class Solver {
         System.out.println(this.grid.PrintBlockGrid());
          */
 
+        return context.getSolution().map(board -> {
+            Grid solution = new Grid(this.grid);
+            solution.LoadBoard(board);
+            return solution;
+        });
+    }
+
+
+    private Optional<Grid> SolvePortfolio(Portfolio portfolio) {
+        this.lastOutcome = null;
+
+        Board board = this.grid.ToBoard();
+        if(!new GridValidator().Validate(board)) return Optional.empty();
+
+        int[] givenOrder = this.grid.CreateUnfilledIndexsList().stream().mapToInt(Integer::intValue).toArray();
+        this.lastOutcome = portfolio.Solve(board, givenOrder);
+        if(!this.lastOutcome.isSolved()) return Optional.empty();
+
+        Grid solution = new Grid(this.grid);
+        solution.LoadBoard(this.lastOutcome.getBoard());
+        return Optional.of(solution);
+    }
+
+
+    /**
+     * Count the solutions of the grid in parallel, stopping every task as soon as the maximum is reached.
+     *
+     * @param maximumSolutions - Number of solutions to stop at, Long.MAX_VALUE to count them all.
+     *
+     * @return Number of solutions found, equal to the maximum if there are at least that many.
+     */
+    public long countSolutions(long maximumSolutions) {
+        return countSolutions(maximumSolutions, null);
+    }
+
+    /**
+     * Count the solutions of the grid in parallel, streaming each one to a listener as it is found.
+     *
+     * @param maximumSolutions - Number of solutions to stop at, Long.MAX_VALUE to count them all.
+     * @param listener - Called with each counted solution from the worker thread that found it. It may be called
+     *                   concurrently, and the Board is still being searched, so it must copy anything it keeps.
+     *
+     * @return Number of solutions found, equal to the maximum if there are at least that many.
+     */
+    public long countSolutions(long maximumSolutions, Consumer<Board> listener) {
+        return Run(maximumSolutions, listener).getSolutionCount();
+    }
+
+
+    private SearchContext Run(long maximumSolutions, Consumer<Board> listener) {
+        SolveEvent event = SolveEvent.Begin();
+
+        LinkedList<Integer> unfilledIndexs = this.grid.CreateUnfilledIndexsList();
+        int[] unfilledOrder = unfilledIndexs.stream().mapToInt(Integer::intValue).toArray();
+
+        SearchContext context = new SearchContext(this.forkPolicy, this.propagator, unfilledOrder, maximumSolutions, listener);
+        this.lastContext = context;
+
+        PhaseEvent toBoard = PhaseEvent.Begin("ToBoard", this.grid.getSize());
+        Board board = this.grid.ToBoard();
+        toBoard.End();
+
+        // A contradiction in the givens has no solutions, so no tasks are started for it
+        PhaseEvent validate = PhaseEvent.Begin("Validate", board.getSize());
+        boolean valid = new GridValidator().Validate(board);
+        validate.End();
+
+        if(valid)
+        {
+            long steals = this.pool.getStealCount();
+            PhaseEvent search = PhaseEvent.Begin("Search", board.getSize());
+            this.pool.invoke(new SolveGrid("1", board, -1, 0, 0, context));
+            search.End();
+
+            if(SearchMetrics.ENABLED)
+            {
+                SearchMetrics tasks = new SearchMetrics();
+                tasks.Tasks(context.getTasksForked(), context.getTasksInlined(), this.pool.getStealCount() - steals);
+                tasks.FlushTo(context.getMetrics());
+            }
+        }
+
+        if(event != null)
+        {
+            event.tasksForked = context.getTasksForked();
+            event.tasksInlined = context.getTasksInlined();
+            event.End("FORK_JOIN", board.getSize(), maximumSolutions, context.getSolutionCount(), context.getMetrics());
+        }
+        return context;
+    }
+
+
+    public ForkPolicy getForkPolicy() {
+        return forkPolicy;
+    }
+
+    public void setForkPolicy(ForkPolicy forkPolicy) {
+        this.forkPolicy = forkPolicy;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * @param pool - Pool the solver's tasks run on, e.g. one with a chosen parallelism.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public Propagator getPropagator() {
+        return propagator;
+    }
+
+    public Portfolio getPortfolio() {
+        return portfolio;
+    }
+
+    /**
+     * @param portfolio - Strategies raced by solve, or null to solve with the fork/join search.
+     */
+    public void setPortfolio(Portfolio portfolio) {
+        this.portfolio = portfolio;
+    }
+
+    /**
+     * @return The strategy that decided the last portfolio solve, or empty if it ran out of CPU budget or no portfolio
+     *         solve has run.
+     */
+    public Optional<PortfolioStrategy> getPortfolioWinner() {
+        return this.lastOutcome == null ? Optional.empty() : Optional.ofNullable(this.lastOutcome.getWinner());
+    }
+
+    public void setPropagator(Propagator propagator) {
+        this.propagator = propagator;
+    }
+
+    /**
+     * @return Number of tasks forked during the last run.
+     */
+    public long getTasksForked() {
+        return this.lastContext == null ? 0 : this.lastContext.getTasksForked();
+    }
+
+    /**
+     * @return Number of branches run inline by the task that reached them during the last run.
+     */
+    public long getTasksInlined() {
+        return this.lastContext == null ? 0 : this.lastContext.getTasksInlined();
+    }
 
+    /**
+     * @return Counters of the last run, or empty if there was none or SearchMetrics are disabled.
+     */
+    public Optional<SearchMetrics> getMetrics() {
+        return this.lastContext == null ? Optional.empty() : Optional.ofNullable(this.lastContext.getMetrics());
     }
 
 
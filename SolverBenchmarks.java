@@ -0,0 +1,284 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmarks for the solver and generator hot paths on 4x4, 9x9, 16x16 and 25x25 grids.
+ * <p>
+ * Usage: {@code java SolverBenchmarks [--filter regex] [--json file] [--quick]}. Each result line gives the time per
+ * operation and bytes allocated per operation; --json writes JMH-format JSON so runs can be compared. Run with the
+ * compiled vector folder on the class path and {@code --add-modules jdk.incubator.vector}, as HouseKernel describes, to
+ * add the vector HouseKernel results alongside the scalar ones.
+ */
+public class SolverBenchmarks {
+
+    private static final int[][] SHAPES = {{2, 2}, {3, 3}, {4, 4}, {5, 5}};
+
+    private final BenchmarkRunner runner;
+    private final Pattern filter;
+    private final Random random = new Random(42);
+
+
+    public SolverBenchmarks(BenchmarkRunner runner, Pattern filter) {
+        this.runner = runner;
+        this.filter = filter;
+    }
+
+
+    public static void main(String[] args) throws IOException {
+        Pattern filter = Pattern.compile(".*");
+        String jsonPath = null;
+        boolean quick = false;
+
+        for(int i = 0; i < args.length; ++i)
+        {
+            switch(args[i])
+            {
+                case "--filter" -> filter = Pattern.compile(args[++i]);
+                case "--json" -> jsonPath = args[++i];
+                case "--quick" -> quick = true;
+                default -> throw new IllegalArgumentException("Unknown argument " + args[i]);
+            }
+        }
+
+        BenchmarkRunner runner = quick ? new BenchmarkRunner(1, 3, 200) : new BenchmarkRunner(5, 10, 1000);
+        new SolverBenchmarks(runner, filter).RunAll();
+
+        if(jsonPath != null)
+        {
+            try(Writer output = new FileWriter(jsonPath))
+            {
+                runner.WriteJson(output);
+            }
+        }
+    }
+
+
+    public void RunAll() {
+        SolveGrid();
+        Solve();
+        CreatePuzzleGrid();
+        GenerateGrid();
+        GridOperations();
+        HouseKernels();
+    }
+
+
+    /**
+     * Grid.SolveGrid on curated easy, hard and pathological 9x9 puzzles and on random puzzles of each shape.
+     */
+    private void SolveGrid() {
+        SolveGridSet("9x9", "easy", 3, 3, BenchmarkPuzzles.Parse(BenchmarkPuzzles.EASY_9X9));
+        SolveGridSet("9x9", "hard", 3, 3, BenchmarkPuzzles.Parse(BenchmarkPuzzles.HARD_9X9));
+        SolveGridSet("9x9", "pathological", 3, 3, BenchmarkPuzzles.Parse(BenchmarkPuzzles.PATHOLOGICAL_9X9));
+
+        for(int[] shape : SHAPES)
+        {
+            // Fewer clues make random 25x25 puzzles heavy-tailed enough to swamp the measurement
+            double removed = shape[0] * shape[1] > 16 ? 0.4 : 0.55;
+            SolveGridSet(Shape(shape), "random", shape[0], shape[1], BenchmarkPuzzles.Dig(shape[0], shape[1], removed, 4, this.random));
+        }
+    }
+
+
+    private void SolveGridSet(String shape, String set, int blockRows, int blockColumns, List<Integer[]> puzzles) {
+        if(!Selected("Grid.SolveGrid")) return;
+
+        Grid[] grids = puzzles.stream().map(puzzle -> BenchmarkPuzzles.Load(blockRows, blockColumns, puzzle)).toArray(Grid[]::new);
+        int[] next = {0};
+
+        this.runner.Run("Grid.SolveGrid", Params(shape, "set", set), () -> {
+            // Solve a copy, the copy itself is measured separately by Grid.CopyGrid
+            Grid grid = new Grid(grids[next[0]++ % grids.length]);
+            return grid.SolveGrid(grid.CreateUnfilledIndexsList(), 1);
+        });
+    }
+
+
+    /**
+     * Solver.solve at different parallelism levels on hard 9x9 and random 16x16 puzzles.
+     */
+    private void Solve() {
+        if(!Selected("Solver.solve")) return;
+
+        Grid hard = BenchmarkPuzzles.Load(3, 3, BenchmarkPuzzles.Parse(BenchmarkPuzzles.HARD_9X9).get(0));
+        Grid large = BenchmarkPuzzles.Load(4, 4, BenchmarkPuzzles.Dig(4, 4, 0.6, 1, this.random).get(0));
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        for(int parallelism : new TreeSet<>(List.of(1, 2, 4, processors)))
+        {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            for(Grid grid : new Grid[] {hard, large})
+            {
+                Solver solver = new Solver(grid);
+                solver.setPool(pool);
+
+                Map<String, String> params = Params(grid == hard ? "9x9" : "16x16", "parallelism", String.valueOf(parallelism));
+                this.runner.Run("Solver.solve", params, solver::solve);
+            }
+            pool.shutdown();
+        }
+    }
+
+
+    /**
+     * Grid.CreatePuzzleGrid digging a full grid down to a unique puzzle.
+     */
+    private void CreatePuzzleGrid() {
+        if(!Selected("Grid.CreatePuzzleGrid")) return;
+
+        for(int[] shape : new int[][] {{2, 2}, {3, 3}})
+        {
+            Grid full = new Grid(shape[0], shape[1]);
+            full.LoadGrid(new Integer[shape[0] * shape[1] * shape[0] * shape[1]]);
+            full.SolveGrid(full.CreateUnfilledIndexsList(), 1);
+
+            this.runner.Run("Grid.CreatePuzzleGrid", Params(Shape(shape)), () -> {
+                Grid grid = new Grid(full);
+                grid.CreatePuzzleGrid(grid.CreateAllIndexsList());
+                return grid;
+            });
+        }
+    }
+
+
+    /**
+     * GridGenerator.Next filling a reused array with a complete grid of each shape.
+     */
+    private void GenerateGrid() {
+        if(!Selected("GridGenerator.Next")) return;
+
+        for(int[] shape : SHAPES)
+        {
+            GridGenerator generator = new GridGenerator(shape[0], shape[1], 42);
+            byte[] grid = new byte[generator.getSize() * generator.getSize()];
+
+            this.runner.Run("GridGenerator.Next", Params(Shape(shape)), () -> {
+                generator.Next(grid);
+                return grid;
+            });
+        }
+    }
+
+
+    /**
+     * Grid.CopyGrid, Grid.ValidateGrid, GridValidator.Validate and Grid.RemovePossibleNumbers on a solved grid of each
+     * shape, and SymmetryCanonicalizer.Canonicalize on a puzzle of each shape.
+     */
+    private void GridOperations() {
+        for(int[] shape : SHAPES)
+        {
+            int size = shape[0] * shape[1];
+            Grid solved = BenchmarkPuzzles.Load(shape[0], shape[1], new Integer[size * size]);
+            solved.SolveGrid(solved.CreateUnfilledIndexsList(), 1);
+
+            Grid puzzle = BenchmarkPuzzles.Load(shape[0], shape[1], BenchmarkPuzzles.Dig(shape[0], shape[1], 0.55, 1, this.random).get(0));
+            LinkedList<Integer> unfilled = puzzle.CreateUnfilledIndexsList();
+            Cell cell = puzzle.getCellsGrid()[unfilled.getFirst() / size][unfilled.getFirst() % size];
+            int number = Candidates.First(cell.getPossibleMask());
+
+            Map<String, String> params = Params(Shape(shape));
+            if(Selected("Grid.CopyGrid")) this.runner.Run("Grid.CopyGrid", params, () -> solved.CopyGrid(solved.getCellsGrid()));
+            if(Selected("Grid.ValidateGrid")) this.runner.Run("Grid.ValidateGrid", params, solved::ValidateGrid);
+            if(Selected("GridValidator.Validate"))
+            {
+                Board board = solved.ToBoard();
+                GridValidator validator = new GridValidator();
+                this.runner.Run("GridValidator.Validate", params, () -> validator.Validate(board));
+            }
+            if(Selected("SymmetryCanonicalizer.Canonicalize"))
+            {
+                Board board = puzzle.ToBoard();
+                SymmetryCanonicalizer canonicalizer = new SymmetryCanonicalizer(shape[0], shape[1]);
+                this.runner.Run("SymmetryCanonicalizer.Canonicalize", params, () -> canonicalizer.Canonicalize(board));
+            }
+            if(Selected("Grid.RemovePossibleNumbers")) this.runner.Run("Grid.RemovePossibleNumbers", params, () -> {
+                puzzle.RemovePossibleNumbers(cell, number);
+                return cell;
+            });
+        }
+    }
+
+
+    /**
+     * HouseKernel scans over every house, every Cell, and every Cell's peers of a puzzle of each shape, once with the
+     * scalar kernel and once with the vector kernel if the JVM was started with the jdk.incubator.vector module.
+     */
+    private void HouseKernels() {
+        if(!Selected("HouseKernel.ScanCandidates") && !Selected("HouseKernel.ScanValues") && !Selected("HouseKernel.NextSingle") && !Selected("HouseKernel.Holding")) return;
+
+        List<HouseKernel> kernels = new ArrayList<>(List.of(HouseKernel.Scalar()));
+        if(HouseKernel.Vector() != null) kernels.add(HouseKernel.Vector());
+
+        for(int[] shape : SHAPES)
+        {
+            Board board = BenchmarkPuzzles.Load(shape[0], shape[1], BenchmarkPuzzles.Dig(shape[0], shape[1], 0.55, 1, this.random).get(0)).ToBoard();
+            int cellCount = board.getCellCount();
+            int[][] houses = board.getHouses();
+
+            long[] candidates = new long[cellCount];
+            byte[] values = new byte[cellCount];
+            for(int index = 0; index < cellCount; ++index)
+            {
+                candidates[index] = board.getCandidates(index);
+                values[index] = (byte) board.getValue(index);
+            }
+            long[] result = new long[2];
+
+            for(HouseKernel kernel : kernels)
+            {
+                Map<String, String> params = Params(Shape(shape), "kernel", kernel.getName());
+
+                if(Selected("HouseKernel.ScanCandidates")) this.runner.Run("HouseKernel.ScanCandidates", params, () -> {
+                    for(int[] house : houses) kernel.ScanCandidates(candidates, house, result);
+                    return result;
+                });
+                if(Selected("HouseKernel.ScanValues")) this.runner.Run("HouseKernel.ScanValues", params, () -> {
+                    for(int[] house : houses) kernel.ScanValues(values, house, result);
+                    return result;
+                });
+                if(Selected("HouseKernel.NextSingle")) this.runner.Run("HouseKernel.NextSingle", params, () -> {
+                    int singles = 0;
+                    for(int index = kernel.NextSingle(candidates, values, 0); index >= 0; index = kernel.NextSingle(candidates, values, index + 1)) ++singles;
+                    return singles;
+                });
+                if(Selected("HouseKernel.Holding")) this.runner.Run("HouseKernel.Holding", params, () -> {
+                    long holding = 0;
+                    for(int index = 0; index < cellCount; ++index)
+                    {
+                        int[] peers = board.getPeers(index);
+                        for(int from = 0; from < peers.length; from += Long.SIZE) holding ^= kernel.Holding(candidates, peers, from, 1L);
+                    }
+                    return holding;
+                });
+            }
+        }
+    }
+
+
+    private boolean Selected(String name) {
+        return this.filter.matcher(name).find();
+    }
+
+    private static String Shape(int[] shape) {
+        int size = shape[0] * shape[1];
+        return size + "x" + size;
+    }
+
+    private static Map<String, String> Params(String shape, String... extra) {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("shape", shape);
+        for(int i = 0; i + 1 < extra.length; i += 2) params.put(extra[i], extra[i + 1]);
+        return params;
+    }
+
+}
@@ -0,0 +1,22 @@
+/**
+ * Search engines available to Grid.SolveGrid and Grid.CountSolutions.
+ */
+public enum SolverEngine {
+
+    /**
+     * Depth-first search over the Board, propagating after each assignment and undoing through the trail.
+     */
+    BACKTRACKING,
+
+    /**
+     * Exact-cover search with Dancing Links.
+     */
+    DANCING_LINKS,
+
+    /**
+     * Search that learns a nogood from each conflict and backjumps past the decisions it does not depend on, see
+     * ConflictSearch.
+     */
+    CONFLICT_LEARNING
+
+}
@@ -0,0 +1,466 @@
+import java.util.Arrays;
+
+/**
+ * Maps a puzzle to a canonical form under the Sudoku symmetries: permuting rows within a band, permuting bands,
+ * permuting columns within a stack, permuting stacks, transposing when blocks are square, and relabeling numbers.
+ * Puzzles that are the same up to these symmetries get the same canonical form, and the transform found for each is
+ * kept so a solution of the canonical form can be mapped back.
+ * <p>
+ * Rows, columns, and numbers are first given invariant keys by a few rounds of refinement, each key hashing the keys of
+ * the Cells it meets, house segment by house segment. Sorting bands, rows, stacks, and columns by key fixes the
+ * arrangement up to ties, and every arrangement of the tied ones is tried for the smallest relabeled form. A puzzle
+ * with more tied arrangements than MAXIMUM_ARRANGEMENTS, e.g. one with many empty rows, keeps its own order for the
+ * ties instead, so its form is still a valid key but may differ between equivalent puzzles.
+ * <p>
+ * A canonicalizer keeps its work arrays between calls, so one per thread can handle any number of puzzles of one shape
+ * without allocating.
+ */
+public class SymmetryCanonicalizer {
+
+    public static final int MAXIMUM_ARRANGEMENTS = 256;
+
+    private static final int REFINEMENT_ROUNDS = 3;
+    private static final long PRIME = 0x9E3779B97F4A7C15L;
+
+    // Kinds of tie group, naming the order array each permutes
+    private static final int BANDS = 0;
+    private static final int ROWS = 1;
+    private static final int STACKS = 2;
+    private static final int COLUMNS = 3;
+
+    private final int size;
+    private final int blockRows;
+    private final int blockColumns;
+
+    private final byte[] view;
+    private final int[] filledCells;
+    private final long[] rowSegments;
+    private final long[] columnSegments;
+    private long[] rowKeys;
+    private long[] columnKeys;
+    private long[] digitKeys;
+    private long[] nextRowKeys;
+    private long[] nextColumnKeys;
+    private long[] nextDigitKeys;
+    private final long[] bandKeys;
+    private final long[] stackKeys;
+
+    // Bands and stacks in order, and the rows of each band and columns of each stack in order, as view indices
+    private final int[] bandOrder;
+    private final int[] rowOrder;
+    private final int[] stackOrder;
+    private final int[] columnOrder;
+
+    private final int[] groupKind;
+    private final int[] groupStart;
+    private final int[] groupLength;
+    private int groupCount;
+
+    private final int[] rowAt;
+    private final int[] columnAt;
+    private final int[] labels;
+    private byte[] candidate;
+    private boolean transposed;
+
+    private byte[] best;
+    private boolean found;
+    private boolean bestTransposed;
+    private final int[] bestRowAt;
+    private final int[] bestColumnAt;
+    private final int[] bestLabels;
+    private final int[] bestNumbers;
+
+
+    public SymmetryCanonicalizer(int blockRows, int blockColumns) {
+        this.blockRows = blockRows;
+        this.blockColumns = blockColumns;
+        this.size = blockRows * blockColumns;
+        int cellCount = this.size * this.size;
+
+        this.view = new byte[cellCount];
+        this.filledCells = new int[cellCount];
+        this.rowSegments = new long[this.size * this.blockRows];
+        this.columnSegments = new long[this.size * this.blockColumns];
+        this.rowKeys = new long[this.size];
+        this.columnKeys = new long[this.size];
+        this.digitKeys = new long[this.size];
+        this.nextRowKeys = new long[this.size];
+        this.nextColumnKeys = new long[this.size];
+        this.nextDigitKeys = new long[this.size];
+        this.bandKeys = new long[this.blockColumns];
+        this.stackKeys = new long[this.blockRows];
+
+        this.bandOrder = new int[this.blockColumns];
+        this.rowOrder = new int[this.size];
+        this.stackOrder = new int[this.blockRows];
+        this.columnOrder = new int[this.size];
+
+        int maximumGroups = 2 * this.size + this.blockRows + this.blockColumns;
+        this.groupKind = new int[maximumGroups];
+        this.groupStart = new int[maximumGroups];
+        this.groupLength = new int[maximumGroups];
+
+        this.rowAt = new int[this.size];
+        this.columnAt = new int[this.size];
+        this.labels = new int[this.size];
+        this.candidate = new byte[cellCount];
+
+        this.best = new byte[cellCount];
+        this.bestRowAt = new int[this.size];
+        this.bestColumnAt = new int[this.size];
+        this.bestLabels = new int[this.size];
+        this.bestNumbers = new int[this.size];
+    }
+
+
+    /**
+     * Compute the canonical form of the filled Cells of a board, keeping the transform for ToCanonical and
+     * FromCanonical.
+     *
+     * @param board - Board of the canonicalizer's shape. Only its filled Cells are read.
+     *
+     * @return The canonical form, one number per Cell in row-major order with Board.EMPTY for unfilled Cells. The
+     *         array is reused by the next call, so copy it to keep it.
+     */
+    public byte[] Canonicalize(Board board) {
+        if(board.getBlockRows() != this.blockRows || board.getBlockColumns() != this.blockColumns)
+            throw new IllegalArgumentException("Board is not " + this.blockRows + "x" + this.blockColumns + " blocks");
+
+        for(int index = 0; index < this.view.length; ++index)
+        {
+            this.view[index] = board.isFilled(index) ? (byte) board.getValue(index) : Board.EMPTY;
+        }
+        this.transposed = false;
+        this.found = false;
+
+        Refine();
+        Search();
+        if(this.blockRows == this.blockColumns)
+        {
+            Transpose();
+            Search();
+        }
+        return this.best;
+    }
+
+
+    /**
+     * Map a solution of the last canonicalized puzzle into canonical form, ready to be stored against it.
+     *
+     * @param solved - Fully filled Board solving the last puzzle given to Canonicalize.
+     * @param canonical - Array of one number per Cell to fill.
+     */
+    public void ToCanonical(Board solved, byte[] canonical) {
+        for(int i = 0; i < this.size; ++i)
+        {
+            for(int j = 0; j < this.size; ++j)
+            {
+                canonical[i * this.size + j] = (byte) this.bestLabels[solved.getValue(OriginalIndex(i, j))];
+            }
+        }
+    }
+
+
+    /**
+     * Map a solution in canonical form back through the inverse of the last transform found.
+     *
+     * @param canonical - Solution of the canonical form of the last puzzle given to Canonicalize.
+     * @param board - Board of the same shape to fill with the solution of the last puzzle.
+     */
+    public void FromCanonical(byte[] canonical, Board board) {
+        for(int i = 0; i < this.size; ++i)
+        {
+            for(int j = 0; j < this.size; ++j)
+            {
+                board.Load(OriginalIndex(i, j), this.bestNumbers[canonical[i * this.size + j]], 0);
+            }
+        }
+    }
+
+
+    private int OriginalIndex(int row, int column) {
+        int viewRow = this.bestRowAt[row];
+        int viewColumn = this.bestColumnAt[column];
+        return this.bestTransposed ? viewColumn * this.size + viewRow : viewRow * this.size + viewColumn;
+    }
+
+
+    /**
+     * Arrange the view by key and keep the smallest relabeled form of its tied arrangements.
+     */
+    private void Search() {
+        GroupKeys();
+        Arrange();
+
+        if(CountArrangements() > MAXIMUM_ARRANGEMENTS) this.groupCount = 0;
+        Enumerate(0);
+    }
+
+
+    /**
+     * Give every row, column, and number a key invariant under the symmetries other than transposing. Each round a
+     * row's key hashes, for each stack, the column and number keys of its filled Cells in that stack, and likewise for
+     * columns by band. A number's key hashes the row and column keys of the Cells holding it, symmetrically, so that
+     * with square blocks the keys of the transposed puzzle are the same with rows and columns swapped.
+     */
+    private void Refine() {
+        int filled = 0;
+        for(int index = 0; index < this.view.length; ++index) if(this.view[index] != Board.EMPTY) this.filledCells[filled++] = index;
+
+        Arrays.fill(this.rowKeys, 0);
+        Arrays.fill(this.columnKeys, 0);
+        Arrays.fill(this.digitKeys, 0);
+        for(int f = 0; f < filled; ++f) ++this.digitKeys[this.view[this.filledCells[f]]];
+
+        for(int round = 0; round < REFINEMENT_ROUNDS; ++round)
+        {
+            Arrays.fill(this.rowSegments, 0);
+            Arrays.fill(this.columnSegments, 0);
+            Arrays.fill(this.nextDigitKeys, 0);
+            for(int f = 0; f < filled; ++f)
+            {
+                int index = this.filledCells[f];
+                int row = index / this.size;
+                int column = index % this.size;
+                int value = this.view[index];
+
+                this.rowSegments[row * this.blockRows + column / this.blockColumns] += Mix(this.columnKeys[column] * PRIME + this.digitKeys[value]);
+                this.columnSegments[column * this.blockColumns + row / this.blockRows] += Mix(this.rowKeys[row] * PRIME + this.digitKeys[value]);
+                this.nextDigitKeys[value] += Mix(this.rowKeys[row] + this.columnKeys[column]);
+            }
+
+            for(int row = 0; row < this.size; ++row)
+            {
+                long key = 0;
+                for(int stack = 0; stack < this.blockRows; ++stack) key += Mix(this.rowSegments[row * this.blockRows + stack] + PRIME);
+                this.nextRowKeys[row] = Mix(this.rowKeys[row] + key);
+            }
+            for(int column = 0; column < this.size; ++column)
+            {
+                long key = 0;
+                for(int band = 0; band < this.blockColumns; ++band) key += Mix(this.columnSegments[column * this.blockColumns + band] + PRIME);
+                this.nextColumnKeys[column] = Mix(this.columnKeys[column] + key);
+            }
+            for(int number = 0; number < this.size; ++number)
+            {
+                this.nextDigitKeys[number] = Mix(this.digitKeys[number] + this.nextDigitKeys[number]);
+            }
+
+            long[] swap = this.rowKeys;
+            this.rowKeys = this.nextRowKeys;
+            this.nextRowKeys = swap;
+            swap = this.columnKeys;
+            this.columnKeys = this.nextColumnKeys;
+            this.nextColumnKeys = swap;
+            swap = this.digitKeys;
+            this.digitKeys = this.nextDigitKeys;
+            this.nextDigitKeys = swap;
+        }
+    }
+
+
+    /**
+     * Transpose the view and its keys in place, only possible with square blocks.
+     */
+    private void Transpose() {
+        for(int row = 0; row < this.size; ++row)
+        {
+            for(int column = row + 1; column < this.size; ++column)
+            {
+                byte swap = this.view[row * this.size + column];
+                this.view[row * this.size + column] = this.view[column * this.size + row];
+                this.view[column * this.size + row] = swap;
+            }
+        }
+
+        long[] swap = this.rowKeys;
+        this.rowKeys = this.columnKeys;
+        this.columnKeys = swap;
+        this.transposed = !this.transposed;
+    }
+
+
+    private void GroupKeys() {
+        Arrays.fill(this.bandKeys, 0);
+        Arrays.fill(this.stackKeys, 0);
+        for(int row = 0; row < this.size; ++row) this.bandKeys[row / this.blockRows] += Mix(this.rowKeys[row]);
+        for(int column = 0; column < this.size; ++column) this.stackKeys[column / this.blockColumns] += Mix(this.columnKeys[column]);
+    }
+
+
+    /**
+     * Sort bands, the rows of each band, stacks, and the columns of each stack by key, and collect each run of equal
+     * keys as a tie group.
+     */
+    private void Arrange() {
+        this.groupCount = 0;
+
+        for(int band = 0; band < this.blockColumns; ++band) this.bandOrder[band] = band;
+        Sort(BANDS, this.bandOrder, 0, this.blockColumns, this.bandKeys);
+
+        for(int row = 0; row < this.size; ++row) this.rowOrder[row] = row;
+        for(int band = 0; band < this.blockColumns; ++band) Sort(ROWS, this.rowOrder, band * this.blockRows, this.blockRows, this.rowKeys);
+
+        for(int stack = 0; stack < this.blockRows; ++stack) this.stackOrder[stack] = stack;
+        Sort(STACKS, this.stackOrder, 0, this.blockRows, this.stackKeys);
+
+        for(int column = 0; column < this.size; ++column) this.columnOrder[column] = column;
+        for(int stack = 0; stack < this.blockRows; ++stack) Sort(COLUMNS, this.columnOrder, stack * this.blockColumns, this.blockColumns, this.columnKeys);
+    }
+
+
+    // Insertion sort, the ranges are at most 64 long
+    private void Sort(int kind, int[] order, int start, int length, long[] keys) {
+        for(int i = start + 1; i < start + length; ++i)
+        {
+            int item = order[i];
+            int j = i - 1;
+            while(j >= start && keys[order[j]] > keys[item])
+            {
+                order[j + 1] = order[j];
+                --j;
+            }
+            order[j + 1] = item;
+        }
+
+        for(int i = start; i < start + length; )
+        {
+            int end = i + 1;
+            while(end < start + length && keys[order[end]] == keys[order[i]]) ++end;
+
+            if(end - i > 1)
+            {
+                this.groupKind[this.groupCount] = kind;
+                this.groupStart[this.groupCount] = i;
+                this.groupLength[this.groupCount] = end - i;
+                ++this.groupCount;
+            }
+            i = end;
+        }
+    }
+
+
+    private long CountArrangements() {
+        long arrangements = 1;
+        for(int group = 0; group < this.groupCount; ++group)
+        {
+            for(int k = 2; k <= this.groupLength[group]; ++k)
+            {
+                arrangements *= k;
+                if(arrangements > MAXIMUM_ARRANGEMENTS) return arrangements;
+            }
+        }
+        return arrangements;
+    }
+
+
+    /**
+     * Try every order of each tie group from the given one on, evaluating each complete arrangement.
+     */
+    private void Enumerate(int group) {
+        if(group == this.groupCount)
+        {
+            Evaluate();
+            return;
+        }
+        Permute(group, 0);
+    }
+
+    private void Permute(int group, int k) {
+        int[] order = Order(this.groupKind[group]);
+        int start = this.groupStart[group];
+        int length = this.groupLength[group];
+
+        if(k == length - 1)
+        {
+            Enumerate(group + 1);
+            return;
+        }
+
+        for(int i = k; i < length; ++i)
+        {
+            Swap(order, start + k, start + i);
+            Permute(group, k + 1);
+            Swap(order, start + k, start + i);
+        }
+    }
+
+    private int[] Order(int kind) {
+        return switch(kind)
+        {
+            case BANDS -> this.bandOrder;
+            case ROWS -> this.rowOrder;
+            case STACKS -> this.stackOrder;
+            default -> this.columnOrder;
+        };
+    }
+
+    private static void Swap(int[] order, int i, int j) {
+        int swap = order[i];
+        order[i] = order[j];
+        order[j] = swap;
+    }
+
+
+    /**
+     * Relabel the current arrangement, numbering each number by its first appearance in row-major order, and keep it
+     * if it is smaller than the best so far. Stops reading as soon as it is known to be larger.
+     */
+    private void Evaluate() {
+        for(int k = 0; k < this.size; ++k)
+        {
+            this.rowAt[k] = this.rowOrder[this.bandOrder[k / this.blockRows] * this.blockRows + k % this.blockRows];
+            this.columnAt[k] = this.columnOrder[this.stackOrder[k / this.blockColumns] * this.blockColumns + k % this.blockColumns];
+        }
+
+        Arrays.fill(this.labels, -1);
+        int nextLabel = 0;
+        boolean smaller = !this.found;
+        for(int i = 0; i < this.size; ++i)
+        {
+            int rowStart = this.rowAt[i] * this.size;
+            for(int j = 0; j < this.size; ++j)
+            {
+                byte value = this.view[rowStart + this.columnAt[j]];
+                if(value != Board.EMPTY)
+                {
+                    if(this.labels[value] < 0) this.labels[value] = nextLabel++;
+                    value = (byte) this.labels[value];
+                }
+
+                int position = i * this.size + j;
+                if(!smaller && value != this.best[position])
+                {
+                    if(value > this.best[position]) return;
+                    smaller = true;
+                }
+                this.candidate[position] = value;
+            }
+        }
+        if(!smaller) return;
+
+        byte[] swap = this.best;
+        this.best = this.candidate;
+        this.candidate = swap;
+        this.found = true;
+
+        // Numbers missing from the puzzle are interchangeable, they take the remaining labels in order
+        for(int number = 0; number < this.size; ++number) if(this.labels[number] < 0) this.labels[number] = nextLabel++;
+        for(int number = 0; number < this.size; ++number)
+        {
+            this.bestLabels[number] = this.labels[number];
+            this.bestNumbers[this.labels[number]] = number;
+        }
+        System.arraycopy(this.rowAt, 0, this.bestRowAt, 0, this.size);
+        System.arraycopy(this.columnAt, 0, this.bestColumnAt, 0, this.size);
+        this.bestTransposed = this.transposed;
+    }
+
+
+    private static long Mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
+    }
+
+}
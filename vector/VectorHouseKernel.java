@@ -0,0 +1,200 @@
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * HouseKernel on the incubating Vector API. Singles are found a vector of Cells at a time across the whole grid. A
+ * house is only scanned with vectors when its Cells are consecutive indices, as every row is, and fill at least two
+ * vectors: gathering the Cells of columns and regions through their index lists measured slower than the scalar loop
+ * at every size. Holding does gather the peers, since the vector compare replaces a branch per peer that the scalar
+ * loop mispredicts. A gather reads a whole vector of indices even where it is masked off, so the entries past the last
+ * full vector are done one at a time.
+ * <p>
+ * The per-lane once and twice masks are merged across lanes by rotating by half the lanes, then a quarter, then an
+ * eighth. The rotations have to be constants for the JIT to compile them to single instructions, hence one field each
+ * rather than an array, and the lanes are capped at 8 so three are always enough.
+ * <p>
+ * Values are bytes, so they are read as 8 byte lanes and widened to longs, which needs a species of 8 long lanes. On
+ * other vector widths the value scans and the value check of NextSingle run the scalar loops.
+ * <p>
+ * Kept out of the main sources so they build without the incubator module. Only loaded by HouseKernel when this class
+ * is on the class path and the jdk.incubator.vector module is present; see HouseKernel for the build steps.
+ */
+final class VectorHouseKernel extends HouseKernel {
+
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED.length() > 8 ? LongVector.SPECIES_512 : LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> BYTES = LONGS.length() == 8 ? ByteVector.SPECIES_64 : null;
+    private static final int LANES = LONGS.length();
+
+    private static final VectorShuffle<Long> HALF = VectorShuffle.iota(LONGS, LANES / 2, 1, true);
+    private static final VectorShuffle<Long> QUARTER = VectorShuffle.iota(LONGS, Math.max(LANES / 4, 1), 1, true);
+    private static final VectorShuffle<Long> EIGHTH = VectorShuffle.iota(LONGS, Math.max(LANES / 8, 1), 1, true);
+
+
+    @Override
+    public String getName() {
+        return "vector" + LONGS.vectorBitSize();
+    }
+
+    @Override
+    public boolean isVector() {
+        return true;
+    }
+
+
+    @Override
+    public int NextSingle(long[] candidates, byte[] values, int from) {
+        int index = from;
+        int bound = from + LONGS.loopBound(candidates.length - from);
+        for(; index < bound; index += LANES)
+        {
+            LongVector masks = LongVector.fromArray(LONGS, candidates, index);
+            VectorMask<Long> singles = masks.and(masks.sub(1)).eq(0);
+            if(BYTES != null)
+            {
+                VectorMask<Byte> empty = ByteVector.fromArray(BYTES, values, index).eq(Board.EMPTY);
+                singles = singles.and(empty.cast(LONGS));
+            }
+
+            for(long lanes = singles.toLong(); lanes != 0; lanes &= lanes - 1)
+            {
+                int single = index + Long.numberOfTrailingZeros(lanes);
+                if(values[single] == Board.EMPTY) return single;
+            }
+        }
+        return super.NextSingle(candidates, values, index);
+    }
+
+
+    @Override
+    public void ScanCandidates(long[] candidates, int[] house, long[] result) {
+        if(!Vectorized(house))
+        {
+            super.ScanCandidates(candidates, house, result);
+            return;
+        }
+
+        LongVector once = LongVector.zero(LONGS);
+        LongVector twice = once;
+
+        int i = 0;
+        int bound = LONGS.loopBound(house.length);
+        for(; i < bound; i += LANES)
+        {
+            LongVector masks = LongVector.fromArray(LONGS, candidates, house[0] + i);
+            twice = twice.or(once.and(masks));
+            once = once.or(masks);
+        }
+        Combine(once, twice, result);
+
+        for(; i < house.length; ++i)
+        {
+            long mask = candidates[house[i]];
+            result[1] |= result[0] & mask;
+            result[0] |= mask;
+        }
+    }
+
+
+    @Override
+    public void ScanValues(byte[] values, int[] house, long[] result) {
+        if(BYTES == null || !Vectorized(house))
+        {
+            super.ScanValues(values, house, result);
+            return;
+        }
+
+        LongVector once = LongVector.zero(LONGS);
+        LongVector twice = once;
+        LongVector one = LongVector.broadcast(LONGS, 1);
+
+        int i = 0;
+        int bound = BYTES.loopBound(house.length);
+        for(; i < bound; i += LANES)
+        {
+            ByteVector bytes = ByteVector.fromArray(BYTES, values, house[0] + i);
+            LongVector numbers = (LongVector) bytes.convertShape(VectorOperators.B2L, LONGS, 0);
+
+            // Unfilled Cells hold -1, which gives no bit
+            VectorMask<Long> empty = numbers.compare(VectorOperators.LT, 0);
+            LongVector bits = one.lanewise(VectorOperators.LSHL, numbers).blend(0, empty);
+
+            twice = twice.or(once.and(bits));
+            once = once.or(bits);
+        }
+        Combine(once, twice, result);
+
+        for(; i < house.length; ++i)
+        {
+            int value = values[house[i]];
+            if(value == Board.EMPTY) continue;
+
+            long bit = Candidates.Bit(value);
+            result[1] |= result[0] & bit;
+            result[0] |= bit;
+        }
+    }
+
+
+    @Override
+    public long Holding(long[] candidates, int[] indices, int from, long bit) {
+        int end = Math.min(indices.length, from + Long.SIZE);
+
+        long holding = 0;
+        int i = from;
+        int bound = from + LONGS.loopBound(end - from);
+        for(; i < bound; i += LANES)
+        {
+            LongVector masks = LongVector.fromArray(LONGS, candidates, 0, indices, i);
+            holding |= masks.and(bit).compare(VectorOperators.NE, 0).toLong() << (i - from);
+        }
+        for(; i < end; ++i)
+        {
+            if((candidates[indices[i]] & bit) != 0) holding |= 1L << (i - from);
+        }
+        return holding;
+    }
+
+
+    /**
+     * Houses hold their Cells in ascending order, so the last being length - 1 past the first means they are all the
+     * indices in between. Shorter houses spend more merging the lanes than the vectors save.
+     */
+    private static boolean Vectorized(int[] house) {
+        return house.length >= 2 * LANES && house[house.length - 1] - house[0] == house.length - 1;
+    }
+
+
+    /**
+     * Merge the per-lane once and twice masks into lane 0 of once and any lane of twice. Each rotation merges every lane
+     * with the one half the remaining distance away, so a number held in two different lanes lands in twice, and no
+     * lane is merged with itself.
+     */
+    private static void Combine(LongVector once, LongVector twice, long[] result) {
+        LongVector other;
+        if(LANES >= 2)
+        {
+            other = once.rearrange(HALF);
+            twice = twice.or(once.and(other));
+            once = once.or(other);
+        }
+        if(LANES >= 4)
+        {
+            other = once.rearrange(QUARTER);
+            twice = twice.or(once.and(other));
+            once = once.or(other);
+        }
+        if(LANES >= 8)
+        {
+            other = once.rearrange(EIGHTH);
+            twice = twice.or(once.and(other));
+            once = once.or(other);
+        }
+        result[0] = once.lane(0);
+        result[1] = twice.reduceLanes(VectorOperators.OR);
+    }
+
+}